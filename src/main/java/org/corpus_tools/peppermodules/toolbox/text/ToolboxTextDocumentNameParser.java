@@ -23,9 +23,9 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.RandomAccessFile;
-import java.util.regex.Pattern;
 
 import org.corpus_tools.pepper.modules.exceptions.PepperModuleException;
+import org.corpus_tools.peppermodules.toolbox.text.utils.DocumentNameNormalizer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -59,15 +59,7 @@ public class ToolboxTextDocumentNameParser {
 			if (markerAndLine.length == 2) {
 				documentName = markerAndLine[1].trim();
 				if (normalizeDocNames) {
-					String d1 = documentName.replaceAll(" ", "-");
-					String d2 = d1.replaceAll("\\.", "_");
-					String d3 = d2.replaceAll("\\n", "_");
-					String d4 = d3.replaceAll(":", "_");
-					String d5 = d4.replaceAll(",", "_");
-					String d6 = d5.replaceAll("-", "_");
-					String d7 = d6.replaceAll(Pattern.quote("("), "");
-					String d8 = d7.replaceAll(Pattern.quote(")"), "");
-					documentName = d8;
+					documentName = DocumentNameNormalizer.normalize(documentName);
 				}
 			}
 			else {
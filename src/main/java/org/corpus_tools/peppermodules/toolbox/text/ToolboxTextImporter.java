@@ -21,6 +21,7 @@ package org.corpus_tools.peppermodules.toolbox.text;
 
 import com.google.common.collect.Range;
 import java.io.File;
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -30,8 +31,13 @@ import org.corpus_tools.pepper.modules.PepperImporter;
 import org.corpus_tools.pepper.modules.PepperMapper;
 import org.corpus_tools.pepper.modules.exceptions.PepperModuleException;
 import org.corpus_tools.pepper.modules.exceptions.PepperModuleNotReadyException;
+import org.corpus_tools.peppermodules.toolbox.text.diagnostics.Interl11nDiagnostics;
+import org.corpus_tools.peppermodules.toolbox.text.diagnostics.WarningAggregator;
+import org.corpus_tools.peppermodules.toolbox.text.diagnostics.WarningCategory;
 import org.corpus_tools.peppermodules.toolbox.text.mapping.ToolboxTextImportMapper;
 import org.corpus_tools.peppermodules.toolbox.text.properties.ToolboxTextImporterProperties;
+import org.corpus_tools.peppermodules.toolbox.text.utils.DocumentNameRegistry;
+import org.corpus_tools.peppermodules.toolbox.text.utils.InterningPool;
 import org.corpus_tools.salt.common.SCorpus;
 import org.corpus_tools.salt.common.SCorpusGraph;
 import org.corpus_tools.salt.common.SDocument;
@@ -57,6 +63,26 @@ public class ToolboxTextImporter extends PepperImporterImpl implements PepperImp
 	private static final Logger logger = LoggerFactory.getLogger(ToolboxTextImporter.class);
 	
 	private Map<Identifier, ToolboxParseBean> parseMap = new HashMap<>();
+	
+	/**
+	 * The sink for interlinearization errors shared by all mappers.
+	 */
+	private Interl11nDiagnostics diagnostics = new Interl11nDiagnostics(0);
+	
+	/**
+	 * The aggregator for frequent warnings shared by all mappers.
+	 */
+	private WarningAggregator warnings = WarningAggregator.UNAGGREGATED;
+	
+	/**
+	 * The pool for interned annotation strings shared by all mappers, if any.
+	 */
+	private InterningPool pool = null;
+	
+	/**
+	 * The registry of the document names in each corpus, shared by all mappers.
+	 */
+	private final DocumentNameRegistry documentNames = new DocumentNameRegistry();
 
 	/**
 	 * Constructor setting metadata mostly.
@@ -184,6 +210,7 @@ public class ToolboxTextImporter extends PepperImporterImpl implements PepperImp
 				for (Long idOffset : idOffsets) {
 					String name = ToolboxTextDocumentNameParser.parseId(idOffset, getProperties().getIdMarker(), corpusFile, getProperties().normalizeDocNames());
 					SDocument doc = corpusGraph.createDocument(subCorpus, name);
+					documentNames.register(doc);
 					getIdentifier2ResourceTable().put(doc.getIdentifier(), corpusFileURI);
 					offsetMap.put(doc.getIdentifier(), idOffset);
 					parseMap.put(doc.getIdentifier(), new ToolboxParseBean(idOffsets, refMap, headerEndOffset, monolithic, offsetMap, idStructureMap));
@@ -191,6 +218,7 @@ public class ToolboxTextImporter extends PepperImporterImpl implements PepperImp
 			}
 			else {
 				SDocument doc = corpusGraph.createDocument(subCorpus, corpusFileName.substring(0, corpusFileName.lastIndexOf('.')));
+				documentNames.register(doc);
 				getIdentifier2ResourceTable().put(doc.getIdentifier(), corpusFileURI);
 				parseMap.put(doc.getIdentifier(), new ToolboxParseBean(idOffsets, refMap, headerEndOffset, monolithic, offsetMap, idStructureMap));
 			}
@@ -232,14 +260,14 @@ public class ToolboxTextImporter extends PepperImporterImpl implements PepperImp
 				}
 				idRange = Range.closed(parse.offsetMap.get(identifier), nextIdOffset);
 			}
-			mapper = new ToolboxTextImportMapper(null, parse.refMap, idRange, parse.idStructureMap.get(idRange.lowerEndpoint()));
+			mapper = new ToolboxTextImportMapper(null, parse.refMap, idRange, parse.idStructureMap.get(idRange.lowerEndpoint()), diagnostics, warnings, pool, documentNames);
 		}
 		else if (element instanceof SCorpus) {
 			if (parse != null) {
-				mapper = new ToolboxTextImportMapper(parse.headerEndOffset, null, null, false);
+				mapper = new ToolboxTextImportMapper(parse.headerEndOffset, null, null, false, diagnostics, warnings, pool, documentNames);
 			}
 			else { // If there is no parse, we are dealing with a directory!
-				mapper = new ToolboxTextImportMapper(null, null, null, false);
+				mapper = new ToolboxTextImportMapper(null, null, null, false, diagnostics, warnings, pool, documentNames);
 			}
 		}
 		else {
@@ -257,9 +285,45 @@ public class ToolboxTextImporter extends PepperImporterImpl implements PepperImp
 		for (String fileExtension : getProperties().getFileExtensions().split("\\s*,\\s*")) {
 			getDocumentEndings().add(fileExtension);
 		}
+		// Compile the configuration shared by all mappers
+		getProperties().compileConfiguration();
+		// Only retain interl11n errors if they are reported
+		diagnostics = new Interl11nDiagnostics(getProperties().getInterl11nReport() == null ? 0 : getProperties().getInterl11nReportLimit());
+		warnings = new WarningAggregator(getProperties().getWarningExamples());
+		pool = getProperties().internStrings() ? new InterningPool(getProperties().getInternPoolSize()) : null;
 		return (super.isReadyToStart());
 	}
 
+	/* (non-Javadoc)
+	 * @see org.corpus_tools.pepper.impl.PepperModuleImpl#end()
+	 */
+	@Override
+	public void end() throws PepperModuleException {
+		super.end();
+		warnings.logSummary(logger);
+		if (pool != null) {
+			logger.info("The interning pool holds " + pool.size() + " strings.");
+		}
+		long count = diagnostics.getCount();
+		if (count > 0) {
+			logger.info("Found " + count + " interlinearization error(s) during the import.");
+		}
+		String report = getProperties().getInterl11nReport();
+		if (report != null) {
+			File reportFile = new File(report);
+			try {
+				diagnostics.write(reportFile);
+				int retained = diagnostics.getEvents().size();
+				if (retained < count) {
+					logger.warn("The interlinearization report " + reportFile.getAbsolutePath() + " only lists the first " + retained + " of " + count + " errors!");
+				}
+			}
+			catch (IOException e) {
+				logger.error("Could not write the interlinearization report to " + reportFile.getAbsolutePath() + "!", e);
+			}
+		}
+	}
+
 	/* (non-Javadoc)
 	 * @see org.corpus_tools.pepper.impl.PepperModuleImpl#getProperties()
 	 */
@@ -273,7 +337,7 @@ public class ToolboxTextImporter extends PepperImporterImpl implements PepperImp
 	 * @param file
 	 */
 	private void warnAboutOrphanRefs(List<Long> orphanRefOffsets, File file) {
-		logger.warn(file.getName() + ": Found \\refs that do not belong to any \\ids! Those will not be processed.");
+		warnings.warn(logger, WarningCategory.ORPHAN_REF, file.getName(), "{}: Found \\refs that do not belong to any \\ids! Those will not be processed.", file.getName());
 	}
 
 	/**
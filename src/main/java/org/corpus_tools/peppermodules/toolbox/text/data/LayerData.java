@@ -21,7 +21,9 @@ package org.corpus_tools.peppermodules.toolbox.text.data;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 
 import com.google.common.collect.ArrayListMultimap;
@@ -38,14 +40,37 @@ import com.google.common.collect.ListMultimap;
  * - Reference data for the reference (Toolbox' \ref) governing the data
  * - The respective annotation layer marker
  * - The name of the document containing the data
+ * 
+ * The data is stored in columns: All characters are kept in a
+ * single character buffer, which can be shared between the
+ * layers of a reference, and every tier (the primary data in tier
+ * {@link #PRIMARY_TIER}, and one tier per annotation line) is a
+ * pair of `int` columns holding the start and end offsets of its
+ * items in the buffer. Item {@link String}s are only materialized
+ * on request, e.g., via {@link #get(int, int)}.
+ * 
+ * Modifications never change existing characters in the buffer, but
+ * append new characters and re-point the offsets.
  *
  * @author Stephan Druskat <[mail@sdruskat.net](mailto:mail@sdruskat.net)>
  *
  */
 public class LayerData {
 	
-	private List<String> primaryData = new ArrayList<>();
-	private ListMultimap<String, List<String>> annotations = ArrayListMultimap.create();
+	/**
+	 * The index of the tier holding the primary data.
+	 */
+	public static final int PRIMARY_TIER = 0;
+	
+	private static final int INITIAL_CAPACITY = 8;
+	
+	private final StringBuilder buffer;
+	private String[] tierNames = new String[INITIAL_CAPACITY];
+	private int[][] starts = new int[INITIAL_CAPACITY][];
+	private int[][] ends = new int[INITIAL_CAPACITY][];
+	private int[] sizes = new int[INITIAL_CAPACITY];
+	private int tierCount = 0;
+	private final Map<String, Integer> tierIndex = new HashMap<>();
 	private final ListMultimap<String, String> map;
 	private final String originalPrimaryData;
 	private final List<String> annotationMarkers;
@@ -60,12 +85,25 @@ public class LayerData {
 	 * @param originalPrimaryData 
 	 * @param annoMarkers
 	 * @param segmented 
-	 * @param missingAnnoString 
-	 * @param fixErrors 
 	 * @param docName 
 	 * @param ref 
 	 */
-	public LayerData(ListMultimap<String, String> markerContentMap, String marker, String originalPrimaryData, List<String> annoMarkers, boolean segmented, String missingAnnoString, boolean fixErrors, String docName, String ref) {
+	public LayerData(ListMultimap<String, String> markerContentMap, String marker, String originalPrimaryData, List<String> annoMarkers, boolean segmented, String docName, String ref) {
+		this(new StringBuilder(), markerContentMap, marker, originalPrimaryData, annoMarkers, segmented, docName, ref);
+	}
+	
+	/**
+	 * @param buffer The character buffer to store the data in, which may be shared with the other layers of the reference
+	 * @param markerContentMap
+	 * @param marker
+	 * @param originalPrimaryData 
+	 * @param annoMarkers
+	 * @param segmented 
+	 * @param docName 
+	 * @param ref 
+	 */
+	public LayerData(StringBuilder buffer, ListMultimap<String, String> markerContentMap, String marker, String originalPrimaryData, List<String> annoMarkers, boolean segmented, String docName, String ref) {
+		this.buffer = buffer;
 		this.map = markerContentMap;
 		this.marker = marker;
 		this.originalPrimaryData = originalPrimaryData;
@@ -75,6 +113,45 @@ public class LayerData {
 		this.ref = ref;
 	}
 	
+	/**
+	 * @param markerContentMap
+	 * @param marker
+	 * @param originalPrimaryData 
+	 * @param annoMarkers
+	 * @param segmented 
+	 * @param missingAnnoString Not used.
+	 * @param fixErrors Not used.
+	 * @param docName 
+	 * @param ref 
+	 * @deprecated Interlinearization errors are fixed by the mappers, so the layer
+	 * data doesn't use the missing annotation string and the fix flag any more. Use
+	 * {@link #LayerData(ListMultimap, String, String, List, boolean, String, String)} instead.
+	 */
+	@Deprecated
+	public LayerData(ListMultimap<String, String> markerContentMap, String marker, String originalPrimaryData, List<String> annoMarkers, boolean segmented, String missingAnnoString, boolean fixErrors, String docName, String ref) {
+		this(markerContentMap, marker, originalPrimaryData, annoMarkers, segmented, docName, ref);
+	}
+	
+	/**
+	 * @param buffer The character buffer to store the data in, which may be shared with the other layers of the reference
+	 * @param markerContentMap
+	 * @param marker
+	 * @param originalPrimaryData 
+	 * @param annoMarkers
+	 * @param segmented 
+	 * @param missingAnnoString Not used.
+	 * @param fixErrors Not used.
+	 * @param docName 
+	 * @param ref 
+	 * @deprecated Interlinearization errors are fixed by the mappers, so the layer
+	 * data doesn't use the missing annotation string and the fix flag any more. Use
+	 * {@link #LayerData(StringBuilder, ListMultimap, String, String, List, boolean, String, String)} instead.
+	 */
+	@Deprecated
+	public LayerData(StringBuilder buffer, ListMultimap<String, String> markerContentMap, String marker, String originalPrimaryData, List<String> annoMarkers, boolean segmented, String missingAnnoString, boolean fixErrors, String docName, String ref) {
+		this(buffer, markerContentMap, marker, originalPrimaryData, annoMarkers, segmented, docName, ref);
+	}
+	
 	/**
 	 * Compiles the primary data and annotations for
 	 * the annotation layer.
@@ -82,43 +159,454 @@ public class LayerData {
 	 * @return The compiled {@link LayerData} object containing all relevant data.
 	 */
 	public LayerData compile() {
-		if (segmented) {
-			/*
-			 * "Tokenization", i.e., a simple split on whitespace(s).
-			 * This is leaving the complexity of tokenization with
-			 * Toolbox (users), which is permissible as it should be assumed
-			 * that Toolbox provides correct data. Yea, right.
-			 */
-			primaryData.addAll(Arrays.asList(originalPrimaryData.split("\\s+")));
-		}
-		else {
-			primaryData.add(originalPrimaryData.trim());
-		}
+		WhitespaceSegmenter segmenter = segmented ? new WhitespaceSegmenter() : null;
+		/*
+		 * "Tokenization", i.e., a simple split on whitespace(s).
+		 * This is leaving the complexity of tokenization with
+		 * Toolbox (users), which is permissible as it should be assumed
+		 * that Toolbox provides correct data. Yea, right.
+		 */
+		compileTier(marker, originalPrimaryData, segmenter);
 		for (String annotationMarker : annotationMarkers) {
 			for (String annotation : map.get(annotationMarker)) {
-				if (segmented) {
-					ArrayList<String> list = new ArrayList<>(Arrays.asList(annotation.split("\\s+")));
-					annotations.put(annotationMarker, list);
-				}
-				else {
-					List<String> list = new ArrayList<>(Arrays.asList(annotation.trim()));
-					annotations.put(annotationMarker, list);
-				}
+				compileTier(annotationMarker, annotation, segmenter);
 			}
 		}
 		return this;
 	}
 
 	/**
-	 * Adds an annotation key and its value to the map
-	 * of annotations for this layer.
+	 * Copies a line to the buffer and adds a tier with its items,
+	 * i.e., its segments if `segmenter` is not `null`, or the trimmed
+	 * line otherwise.
+	 *
+	 * @param name The name of the tier
+	 * @param line The line to compile
+	 * @param segmenter The segmenter to use, or `null` if the line should not be segmented
+	 */
+	private void compileTier(String name, String line, WhitespaceSegmenter segmenter) {
+		int from = buffer.length();
+		buffer.append(line);
+		int to = buffer.length();
+		if (segmenter != null) {
+			int size = segmenter.segment(buffer, from, to);
+			int tier = newTier(name, size);
+			for (int i = 0; i < size; i++) {
+				add(tier, segmenter.getStart(i), segmenter.getEnd(i));
+			}
+		}
+		else {
+			// Trim as String#trim does
+			while (from < to && buffer.charAt(from) <= ' ') {
+				from++;
+			}
+			while (to > from && buffer.charAt(to - 1) <= ' ') {
+				to--;
+			}
+			add(newTier(name, 1), from, to);
+		}
+	}
+	
+	/**
+	 * Adds an empty tier.
+	 *
+	 * @param name The name of the tier
+	 * @param capacity The initial capacity of the tier
+	 * @return The index of the new tier
+	 */
+	private int newTier(String name, int capacity) {
+		if (tierCount == tierNames.length) {
+			int newLength = tierCount * 2;
+			tierNames = Arrays.copyOf(tierNames, newLength);
+			starts = Arrays.copyOf(starts, newLength);
+			ends = Arrays.copyOf(ends, newLength);
+			sizes = Arrays.copyOf(sizes, newLength);
+		}
+		int tier = tierCount++;
+		tierNames[tier] = name;
+		starts[tier] = new int[Math.max(capacity, 1)];
+		ends[tier] = new int[Math.max(capacity, 1)];
+		sizes[tier] = 0;
+		if (tier != PRIMARY_TIER && !tierIndex.containsKey(name)) {
+			tierIndex.put(name, tier);
+		}
+		return tier;
+	}
+
+	private void ensureCapacity(int tier, int capacity) {
+		if (starts[tier].length < capacity) {
+			int newLength = Math.max(capacity, starts[tier].length * 2);
+			starts[tier] = Arrays.copyOf(starts[tier], newLength);
+			ends[tier] = Arrays.copyOf(ends[tier], newLength);
+		}
+	}
+
+	private void add(int tier, int start, int end) {
+		int size = sizes[tier];
+		ensureCapacity(tier, size + 1);
+		starts[tier][size] = start;
+		ends[tier][size] = end;
+		sizes[tier] = size + 1;
+	}
+	
+	private void checkIndex(int tier, int index) {
+		if (index < 0 || index >= sizes[tier]) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + sizes[tier]);
+		}
+	}
+
+	/**
+	 * @return The number of tiers, including the primary data tier.
+	 */
+	public int getTierCount() {
+		return tierCount;
+	}
+
+	/**
+	 * @param tier The index of the tier
+	 * @return The name of the tier, i.e., the layer marker for the primary data tier, and the annotation key otherwise.
+	 */
+	public String getTierName(int tier) {
+		return tierNames[tier];
+	}
+
+	/**
+	 * @param name The name of an annotation tier
+	 * @return The index of the first annotation tier with the name, or `-1` if there is none.
+	 */
+	public int getTier(String name) {
+		Integer tier = tierIndex.get(name);
+		return tier == null ? -1 : tier;
+	}
+
+	/**
+	 * @param tier The index of the tier
+	 * @return The number of items in the tier.
+	 */
+	public int size(int tier) {
+		return sizes[tier];
+	}
+
+	/**
+	 * Materializes an item.
+	 *
+	 * @param tier The index of the tier
+	 * @param index The index of the item in the tier
+	 * @return The item as a {@link String}.
+	 * @throws IndexOutOfBoundsException if the tier has no item at the index
+	 */
+	public String get(int tier, int index) {
+		checkIndex(tier, index);
+		return buffer.substring(starts[tier][index], ends[tier][index]);
+	}
+
+	/**
+	 * Materializes a whole tier.
+	 *
+	 * @param tier The index of the tier
+	 * @return A new list of the items in the tier.
+	 */
+	public List<String> getValues(int tier) {
+		List<String> values = new ArrayList<>(sizes[tier]);
+		for (int i = 0; i < sizes[tier]; i++) {
+			values.add(buffer.substring(starts[tier][i], ends[tier][i]));
+		}
+		return values;
+	}
+
+	/**
+	 * @param tier The index of the tier
+	 * @param index The index of the item in the tier
+	 * @param prefix The prefix to test
+	 * @return Whether the item starts with the prefix.
+	 */
+	public boolean startsWith(int tier, int index, String prefix) {
+		checkIndex(tier, index);
+		int start = starts[tier][index];
+		return ends[tier][index] - start >= prefix.length() && regionMatches(start, prefix);
+	}
+
+	/**
+	 * @param tier The index of the tier
+	 * @param index The index of the item in the tier
+	 * @param suffix The suffix to test
+	 * @return Whether the item ends with the suffix.
+	 */
+	public boolean endsWith(int tier, int index, String suffix) {
+		checkIndex(tier, index);
+		int start = ends[tier][index] - suffix.length();
+		return start >= starts[tier][index] && regionMatches(start, suffix);
+	}
+
+	/**
+	 * @param tier The index of the tier
+	 * @param index The index of the item in the tier
+	 * @param value The value to compare the item to
+	 * @return Whether the item equals the value.
+	 */
+	public boolean matches(int tier, int index, String value) {
+		checkIndex(tier, index);
+		return ends[tier][index] - starts[tier][index] == value.length() && regionMatches(starts[tier][index], value);
+	}
+	
+	private boolean regionMatches(int offset, String value) {
+		for (int i = 0; i < value.length(); i++) {
+			if (buffer.charAt(offset + i) != value.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return The character buffer holding the items of all tiers.
+	 */
+	public CharSequence getBuffer() {
+		return buffer;
+	}
+
+	/**
+	 * Returns the start offset column of a tier. The returned array
+	 * is the live column and may be longer than the tier, and must not
+	 * be modified.
+	 *
+	 * @param tier The index of the tier
+	 * @return The start offsets of the items in the buffer.
+	 */
+	public int[] getStarts(int tier) {
+		return starts[tier];
+	}
+
+	/**
+	 * Returns the end offset column of a tier. The returned array
+	 * is the live column and may be longer than the tier, and must not
+	 * be modified.
+	 *
+	 * @param tier The index of the tier
+	 * @return The end offsets of the items in the buffer.
+	 */
+	public int[] getEnds(int tier) {
+		return ends[tier];
+	}
+
+	/**
+	 * Appends an item to a tier.
+	 *
+	 * @param tier The index of the tier
+	 * @param value The item to append
+	 */
+	public void add(int tier, CharSequence value) {
+		int start = buffer.length();
+		buffer.append(value);
+		add(tier, start, buffer.length());
+	}
+
+	/**
+	 * Replaces an item.
+	 *
+	 * @param tier The index of the tier
+	 * @param index The index of the item in the tier
+	 * @param value The new item
+	 */
+	public void set(int tier, int index, CharSequence value) {
+		checkIndex(tier, index);
+		starts[tier][index] = buffer.length();
+		buffer.append(value);
+		ends[tier][index] = buffer.length();
+	}
+
+	/**
+	 * Replaces an item with the concatenation of a range of items.
+	 *
+	 * @param tier The index of the tier
+	 * @param index The index of the item to replace
+	 * @param from The index of the first item to concatenate, inclusive
+	 * @param to The index of the last item to concatenate, exclusive
+	 * @param separator The {@link String} to put between two concatenated items
+	 */
+	public void join(int tier, int index, int from, int to, String separator) {
+		checkIndex(tier, index);
+		checkIndex(tier, from);
+		checkIndex(tier, to - 1);
+		int start = buffer.length();
+		for (int i = from; i < to; i++) {
+			if (i > from) {
+				buffer.append(separator);
+			}
+			buffer.append(buffer, starts[tier][i], ends[tier][i]);
+		}
+		starts[tier][index] = start;
+		ends[tier][index] = buffer.length();
+	}
+
+	/**
+	 * Replaces an item with the concatenation of two items, without
+	 * checking the indices against the size of the tier. For in-place
+	 * compaction of a tier.
+	 *
+	 * @param tier The index of the tier
+	 * @param index The index of the item to replace
+	 * @param first The index of the first item to concatenate
+	 * @param second The index of the second item to concatenate
+	 */
+	void concat(int tier, int index, int first, int second) {
+		int start = buffer.length();
+		buffer.append(buffer, starts[tier][first], ends[tier][first]);
+		buffer.append(buffer, starts[tier][second], ends[tier][second]);
+		starts[tier][index] = start;
+		ends[tier][index] = buffer.length();
+	}
+
+	/**
+	 * Copies the offsets of an item to another index, without
+	 * checking the indices against the size of the tier. For in-place
+	 * compaction of a tier.
+	 *
+	 * @param tier The index of the tier
+	 * @param from The index of the item to copy
+	 * @param to The index to copy the item to
+	 */
+	void copy(int tier, int from, int to) {
+		starts[tier][to] = starts[tier][from];
+		ends[tier][to] = ends[tier][from];
+	}
+
+	/**
+	 * Removes an item, shifting all subsequent items to the left.
+	 *
+	 * @param tier The index of the tier
+	 * @param index The index of the item to remove
+	 */
+	public void remove(int tier, int index) {
+		checkIndex(tier, index);
+		int moved = sizes[tier] - index - 1;
+		System.arraycopy(starts[tier], index + 1, starts[tier], index, moved);
+		System.arraycopy(ends[tier], index + 1, ends[tier], index, moved);
+		sizes[tier]--;
+	}
+
+	/**
+	 * Drops all items beyond a given size.
+	 *
+	 * @param tier The index of the tier
+	 * @param size The new size of the tier, which must not be larger than the current size
+	 */
+	public void truncate(int tier, int size) {
+		if (size > sizes[tier]) {
+			throw new IndexOutOfBoundsException("Size: " + size + ", current size: " + sizes[tier]);
+		}
+		sizes[tier] = size;
+	}
+
+	/**
+	 * Appends copies of a value to a tier until the tier has a given size.
+	 * The value is stored in the buffer only once.
+	 *
+	 * @param tier The index of the tier
+	 * @param size The new size of the tier
+	 * @param value The value to pad the tier with
+	 */
+	public void pad(int tier, int size, String value) {
+		if (sizes[tier] >= size) {
+			return;
+		}
+		int start = buffer.length();
+		buffer.append(value);
+		int end = buffer.length();
+		ensureCapacity(tier, size);
+		while (sizes[tier] < size) {
+			add(tier, start, end);
+		}
+	}
+
+	/**
+	 * Adds a tier which holds the items of a tier of another
+	 * data object. If both objects share a buffer, only the
+	 * offsets are copied.
+	 *
+	 * @param name The name of the new tier
+	 * @param source The data object holding the tier to copy
+	 * @param sourceTier The index of the tier to copy
+	 * @return The index of the new tier
+	 */
+	public int addTier(String name, LayerData source, int sourceTier) {
+		int tier = newTier(name, source.sizes[sourceTier]);
+		setTier(tier, source, sourceTier);
+		return tier;
+	}
+
+	/**
+	 * Replaces the items of a tier with the items of a tier of
+	 * another data object. If both objects share a buffer, only
+	 * the offsets are copied.
+	 *
+	 * @param tier The index of the tier to replace the items of
+	 * @param source The data object holding the tier to copy
+	 * @param sourceTier The index of the tier to copy
+	 */
+	public void setTier(int tier, LayerData source, int sourceTier) {
+		int size = source.sizes[sourceTier];
+		sizes[tier] = 0;
+		if (source.buffer == buffer) {
+			ensureCapacity(tier, size);
+			System.arraycopy(source.starts[sourceTier], 0, starts[tier], 0, size);
+			System.arraycopy(source.ends[sourceTier], 0, ends[tier], 0, size);
+			sizes[tier] = size;
+		}
+		else {
+			for (int i = 0; i < size; i++) {
+				add(tier, source.buffer.subSequence(source.starts[sourceTier][i], source.ends[sourceTier][i]));
+			}
+		}
+	}
+
+	/**
+	 * Removes all annotation tiers with a name.
+	 *
+	 * @param name The name of the tiers to remove
+	 * @return Whether any tier has been removed.
+	 */
+	public boolean removeTiers(String name) {
+		if (!tierIndex.containsKey(name)) {
+			return false;
+		}
+		int kept = PRIMARY_TIER + 1;
+		for (int tier = PRIMARY_TIER + 1; tier < tierCount; tier++) {
+			if (!tierNames[tier].equals(name)) {
+				tierNames[kept] = tierNames[tier];
+				starts[kept] = starts[tier];
+				ends[kept] = ends[tier];
+				sizes[kept] = sizes[tier];
+				kept++;
+			}
+		}
+		for (int tier = kept; tier < tierCount; tier++) {
+			tierNames[tier] = null;
+			starts[tier] = null;
+			ends[tier] = null;
+		}
+		tierCount = kept;
+		tierIndex.clear();
+		for (int tier = PRIMARY_TIER + 1; tier < tierCount; tier++) {
+			if (!tierIndex.containsKey(tierNames[tier])) {
+				tierIndex.put(tierNames[tier], tier);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Adds an annotation key and its value to the 
+	 * annotations for this layer.
 	 *
 	 * @param key The annotation key
 	 * @param value The value for this annotation
 	 */
 	public void addAnnotation(String key, List<String> value) {
-		annotations.put(key, value);
-		
+		int tier = newTier(key, value.size());
+		for (String item : value) {
+			add(tier, item);
+		}
 	}
 
 	/**
@@ -131,40 +619,85 @@ public class LayerData {
 	 * @param value The value for this annotation
 	 */
 	public void addToAnnotation(String key, String value) {
-		if (annotations.get(key).size() > 0) {
-			List<String> oldList = new ArrayList<>(annotations.get(key).get(0));
-			annotations.remove(key, oldList);
-			oldList.add(value);
-			annotations.put(key, new ArrayList<>(oldList));
-		}
-		else {
-			annotations.put(key, Arrays.asList(new String[]{value}));
+		int tier = getTier(key);
+		if (tier < 0) {
+			tier = newTier(key, 1);
 		}
+		add(tier, value);
 	}
 
 	/**
-	 * @return the primaryData
+	 * Returns the items of the primary data. As the items
+	 * are stored as offsets into the character buffer, this
+	 * is a new list, and changes to it are not reflected in
+	 * the layer data.
+	 * 
+	 * @return a new list of the items of the primary data
 	 */
 	public List<String> getPrimaryData() {
-		return primaryData;
+		return getValues(PRIMARY_TIER);
 	}
+
 	/**
+	 * Replaces the items of the primary data.
+	 * 
 	 * @param primaryData the primaryData to set
+	 * @deprecated Use {@link #truncate(int, int)} and {@link #add(int, CharSequence)}
+	 * on {@link #PRIMARY_TIER} instead.
 	 */
+	@Deprecated
 	public final void setPrimaryData(List<String> primaryData) {
-		this.primaryData = primaryData;
+		if (tierCount == 0) {
+			newTier(marker, primaryData.size());
+		}
+		else {
+			truncate(PRIMARY_TIER, 0);
+		}
+		for (String item : primaryData) {
+			add(PRIMARY_TIER, item);
+		}
 	}
+
 	/**
+	 * Returns the annotations of the layer as a map from
+	 * annotation keys to the lists of their items. This is a
+	 * new map, and changes to it are not reflected in the layer data.
+	 * 
 	 * @return the annotations
+	 * @deprecated Use {@link #getTierCount()}, {@link #getTierName(int)} and
+	 * {@link #getValues(int)} instead.
 	 */
+	@Deprecated
 	public ListMultimap<String,List<String>> getAnnotations() {
+		ListMultimap<String, List<String>> annotations = ArrayListMultimap.create();
+		for (int tier = PRIMARY_TIER + 1; tier < tierCount; tier++) {
+			annotations.put(tierNames[tier], getValues(tier));
+		}
 		return annotations;
 	}
+
 	/**
+	 * Replaces all annotations of the layer.
+	 * 
 	 * @param annotations the annotations to set
+	 * @deprecated Use {@link #removeTiers(String)} and
+	 * {@link #addAnnotation(String, List)} instead.
 	 */
+	@Deprecated
 	public final void setAnnotations(ListMultimap<String, List<String>> annotations) {
-		this.annotations = annotations;
+		if (tierCount == 0) {
+			newTier(marker, 0);
+		}
+		for (int tier = PRIMARY_TIER + 1; tier < tierCount; tier++) {
+			tierNames[tier] = null;
+			starts[tier] = null;
+			ends[tier] = null;
+		}
+		tierCount = PRIMARY_TIER + 1;
+		tierIndex.clear();
+		for (Entry<String, List<String>> annotation : annotations.entries()) {
+			addAnnotation(annotation.getKey(), annotation.getValue());
+		}
 	}
 
 	/* (non-Javadoc)
@@ -175,8 +708,8 @@ public class LayerData {
 		StringBuilder sb = new StringBuilder();
 		sb.append(this.docName + "::" + this.ref + ":" + this.marker + "\n");
 		sb.append(this.getPrimaryData() + "\n");
-		for (Entry<String, List<String>> anno : this.getAnnotations().entries()) {
-			sb.append("    " + anno.getKey() + ":" + anno.getValue() + "\n");
+		for (int tier = PRIMARY_TIER + 1; tier < tierCount; tier++) {
+			sb.append("    " + tierNames[tier] + ":" + getValues(tier) + "\n");
 		}
 		return sb.toString().trim();
 	}
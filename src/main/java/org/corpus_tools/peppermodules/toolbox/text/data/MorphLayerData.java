@@ -22,9 +22,10 @@ package org.corpus_tools.peppermodules.toolbox.text.data;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.ListIterator;
-import java.util.Map.Entry;
+import java.util.NoSuchElementException;
 
+import org.corpus_tools.peppermodules.toolbox.text.diagnostics.WarningAggregator;
+import org.corpus_tools.peppermodules.toolbox.text.diagnostics.WarningCategory;
 import org.corpus_tools.peppermodules.toolbox.text.mapping.RefMapper;
 import org.corpus_tools.peppermodules.toolbox.text.properties.ToolboxTextImporterProperties;
 import org.slf4j.Logger;
@@ -44,24 +45,81 @@ import com.google.common.collect.ListMultimap;
 public class MorphLayerData extends LayerData {
 	
 	private static final Logger log = LoggerFactory.getLogger(MorphLayerData.class);
+	private static final int INITIAL_GROUPS = 8;
 	
-	private List<String> morphWords = new ArrayList<>();
+	private WarningAggregator warnings = WarningAggregator.UNAGGREGATED;
+	
+	/**
+	 * The index of the first morpheme of each group of morphemes,
+	 * followed by the end index of the last group.
+	 */
+	private int[] groupStarts = new int[INITIAL_GROUPS];
+	private int groupCount = 0;
+	private int morphWordCount = 0;
+	private int prefixStart = 0;
 
-	private ArrayList<String[]> morphemesInMorphWordList;
+	/**
+	 * @param markerContentMap
+	 * @param marker
+	 * @param originalPrimaryData
+	 * @param annoMarkers
+	 * @param segmented 
+	 * @param docName 
+	 * @param ref 
+	 */
+	public MorphLayerData(ListMultimap<String, String> markerContentMap, String marker, String originalPrimaryData, List<String> annoMarkers, boolean segmented, String docName, String ref) {
+		super(markerContentMap, marker, originalPrimaryData, annoMarkers, segmented, docName, ref);
+	}
 
 	/**
+	 * @param buffer The character buffer to store the data in, which may be shared with the other layers of the reference
 	 * @param markerContentMap
 	 * @param marker
 	 * @param originalPrimaryData
 	 * @param annoMarkers
 	 * @param segmented 
+	 * @param docName 
 	 * @param ref 
-	 * @param fixErrors 
-	 * @param missingAnnoString 
+	 */
+	public MorphLayerData(StringBuilder buffer, ListMultimap<String, String> markerContentMap, String marker, String originalPrimaryData, List<String> annoMarkers, boolean segmented, String docName, String ref) {
+		super(buffer, markerContentMap, marker, originalPrimaryData, annoMarkers, segmented, docName, ref);
+	}
+
+	/**
+	 * @param markerContentMap
+	 * @param marker
+	 * @param originalPrimaryData
+	 * @param annoMarkers
+	 * @param segmented 
+	 * @param missingAnnoString Not used.
+	 * @param fixErrors Not used.
 	 * @param docName 
+	 * @param ref 
+	 * @deprecated See {@link LayerData#LayerData(ListMultimap, String, String, List, boolean, String, boolean, String, String)}.
+	 * Use {@link #MorphLayerData(ListMultimap, String, String, List, boolean, String, String)} instead.
 	 */
+	@Deprecated
 	public MorphLayerData(ListMultimap<String, String> markerContentMap, String marker, String originalPrimaryData, List<String> annoMarkers, boolean segmented, String missingAnnoString, boolean fixErrors, String docName, String ref) {
-		super(markerContentMap, marker, originalPrimaryData, annoMarkers, segmented, missingAnnoString, fixErrors, docName, ref);
+		this(markerContentMap, marker, originalPrimaryData, annoMarkers, segmented, docName, ref);
+	}
+
+	/**
+	 * @param buffer The character buffer to store the data in, which may be shared with the other layers of the reference
+	 * @param markerContentMap
+	 * @param marker
+	 * @param originalPrimaryData
+	 * @param annoMarkers
+	 * @param segmented 
+	 * @param missingAnnoString Not used.
+	 * @param fixErrors Not used.
+	 * @param docName 
+	 * @param ref 
+	 * @deprecated See {@link LayerData#LayerData(ListMultimap, String, String, List, boolean, String, boolean, String, String)}.
+	 * Use {@link #MorphLayerData(StringBuilder, ListMultimap, String, String, List, boolean, String, String)} instead.
+	 */
+	@Deprecated
+	public MorphLayerData(StringBuilder buffer, ListMultimap<String, String> markerContentMap, String marker, String originalPrimaryData, List<String> annoMarkers, boolean segmented, String missingAnnoString, boolean fixErrors, String docName, String ref) {
+		this(buffer, markerContentMap, marker, originalPrimaryData, annoMarkers, segmented, docName, ref);
 	}
 	
 	@Override
@@ -75,11 +133,18 @@ public class MorphLayerData extends LayerData {
 	 * 
 	 * First, any free affix delimiters are concatenated to the respective morpheme
 	 * so that affixes can be used to group morphemes into "morphological words"
-	 * downstream. Also, "liaison delimiters" are detected and memorized for later 
-	 * deletion (during token mapping).
+	 * downstream. Liaison delimiters are always attached to the next morpheme,
+	 * and are dropped from the primary data during token mapping.
+	 * 
+	 * Then, the "morphological words" are inferred and mapped to
+	 * their lexical counterparts: Morphemes ending in an affix or clitic
+	 * delimiter are grouped with the following morpheme ("prefix words"),
+	 * and prefix words starting with an affix, clitic or liaison
+	 * delimiter are grouped with the preceding word.
 	 * 
-	 * Then, the "morphological words are inferred and mapped to
-	 * their lexical counterparts. 
+	 * Both steps are done in a single forward pass over the morphemes,
+	 * which compacts the tier columns in place and records the
+	 * boundaries of the groups in an array of group starts.
 	 * 
 	 * @param affix The affix delimiter string
 	 * @param clitic The clitic delimiter string
@@ -93,188 +158,288 @@ public class MorphLayerData extends LayerData {
 	 * @see ToolboxTextImporterProperties#attachDelimiterToNext()
 	 */
 	public MorphLayerData compileMorphWords(String affix, String clitic, String liaison, boolean attach, boolean attachToNext) {
-		List<String> morphs = getPrimaryData();
-		attachDelimiters(affix, clitic, liaison, attach, attachToNext, morphs);
-		/*
-		 *  Count "words" and map words back to morphemes contained.
-		 *  Concatenate prefixes first.
-		 */
-		morphemesInMorphWordList = new ArrayList<>();
-		List<String> tmpList = new ArrayList<>();
-		List<String> prefixWords = new ArrayList<>();
-		List<Integer> liaisonIndices = new ArrayList<>();
-		for (int i = 0; i < morphs.size(); i++) {
-			String morph = morphs.get(i);
-			/* 
-			 * While we have an iterating index,
-			 * check whether the morpheme starts
-			 * with the liaison delimiter, and if
-			 * so, remember the index. Based on these
-			 * indices, the liaison delimiter will be
-			 * dropped from the primary data later on.
-			 */
-			if (morph.startsWith(liaison)) {
-				liaisonIndices.add(i);
-			}
-			if (morph.endsWith(affix) || morph.endsWith(clitic)) {
-				tmpList.add(morph);
-			}
-			else {
-				tmpList.add(morph);
-				String prefixWord = "";
-				for (String tmpMorph : tmpList) {
-					prefixWord += tmpMorph;
-				}
-				prefixWords.add(prefixWord);
-				morphemesInMorphWordList.add(tmpList.toArray(new String[tmpList.size()]));
-				tmpList.clear();
-			}
+		groupStarts[0] = 0;
+		groupCount = 0;
+		morphWordCount = 0;
+		prefixStart = 0;
+		if (attach) {
+			attachDelimiters(affix, clitic, liaison, attachToNext);
 		}
-		// Now concatenate suffixes
-		List<String> morphWords = new ArrayList<>();
-		ListIterator<String[]> iterator = morphemesInMorphWordList.listIterator();
-		while (iterator.hasNext()) {
-			String[] prefixWord = iterator.next();
-			if (!prefixWord[0].startsWith(affix) && !prefixWord[0].startsWith(clitic) && !prefixWord[0].startsWith(liaison)) {
-				String suffixWord = "";
-				for (int j = 0; j < prefixWord.length; j++) {
-					suffixWord += prefixWord[j];
-				}
-				morphWords.add(suffixWord);
-			}
-			else {
-				if (morphWords.size() > 0) {
-				String newMorphWord = morphWords.get(morphWords.size() - 1);
-				for (String pw : prefixWord) {
-					newMorphWord = newMorphWord.concat(pw);
-				}
-				morphWords.set(morphWords.size() - 1, newMorphWord);
-				iterator.previous();
-				String[] oldMorphsArr = iterator.previous();
-				String[] newMorphsArr = Arrays.copyOf(oldMorphsArr, oldMorphsArr.length + prefixWord.length);
-				newMorphsArr[newMorphsArr.length - 1] = prefixWord[0];
-				iterator.next();
-				iterator.set(newMorphsArr);
-				iterator.next();
-				iterator.remove();
-				}
-				else {
-					log.debug("Reference {} in document {} does not contain suffixed morphemes, hence skipping concatenation.", ref, docName);
-				}
+		else {
+			for (int index = 0; index < size(PRIMARY_TIER); index++) {
+				group(index, affix, clitic, liaison);
 			}
 		}
-		this.morphWords = morphWords;
 		return this;
 	}
 
 	/**
 	 * Attaches any free delimiters to the respective morphemes, 
-	 * based on whether and where to attach. 
+	 * based on where to attach, and groups the resulting morphemes.
+	 * 
+	 * The tiers are compacted in place: For each tier, the items up
+	 * to a write index are final, and the item at a read index is
+	 * the item at the current position. A delimiter is attached by
+	 * concatenating it to the previous final item or to the next
+	 * unread item, and skipping it. As a morpheme is only final once
+	 * the next morpheme has been written, it is grouped one step behind.
 	 *
 	 * @param affix The affix delimiter string
 	 * @param clitic The clitic delimiter string 
-	 * @param attach Whether to attach delimiters
+	 * @param liaison The liaison delimiter string
 	 * @param attachToNext Whether to attach delimiters to the next morpheme per default
-	 * @param morphs A list of morphemes
 	 * 
 	 * @see ToolboxTextImporterProperties#attachDelimiter()
 	 * @see ToolboxTextImporterProperties#attachDelimiterToNext()
 	 */
-	private void attachDelimiters(String affix, String clitic, String liaison, boolean attach, boolean attachToNext, List<String> morphs) {
-		// Attach delimiters if specified
-		if (attach) {
-			for (ListIterator<String> iterator = morphs.listIterator(); iterator.hasNext();) {
-				int index = iterator.nextIndex();
-				String tok = iterator.next();
-				if (tok.equals(affix) || tok.equals(clitic)) {
-					if (attachToNext) {
-						String next = iterator.next();
-						iterator.set(tok + next);
-						iterator.previous();
-						iterator.previous();
-						iterator.remove();
-						// Process annotations accordingly
-						for (Entry<String, List<String>> anno : getAnnotations().entries()) {
-							String delimValue = null;
-							if (index >= anno.getValue().size()) {
-								log.warn("Mismatch between no. of morphemes and no. of annotations on layer \"" + anno.getKey() + "\" in document \"" + getDocName() + "\", reference \"" + getRef() + "\". Ignoring annotation.");
-							}
-							else {
-								delimValue = anno.getValue().get(index);
-								if (delimValue.equals(affix) || delimValue.equals(clitic)) {
-									String nextValue = anno.getValue().get(index + 1);
-									String newNextValue = delimValue + nextValue;
-									anno.getValue().remove(index);
-									anno.getValue().set(index, newNextValue);
-								}
-							}
-						}
-					}
-					else {
-						iterator.previous();
-						String previous = iterator.previous();
-						iterator.set(previous + tok);
-						iterator.next();
-						iterator.next();
-						iterator.remove();
-						// Process annotations accordingly
-						for (Entry<String, List<String>> anno : getAnnotations().entries()) {
-							String delimValue = anno.getValue().get(index);
-							if (delimValue.equals(affix) || delimValue.equals(clitic)) {
-								String previousValue = null;
-								if (index - 1 >= 0) {
-									previousValue = anno.getValue().get(index -1);
-								}
-								else {
-									// Attach to next instead
-								}
-								if (previousValue != null) {
-									String newPreviousValue = previousValue + delimValue;
-									anno.getValue().remove(index);
-									anno.getValue().set(index - 1, newPreviousValue);
-								}
-							}
-						}
+	private void attachDelimiters(String affix, String clitic, String liaison, boolean attachToNext) {
+		int tierCount = getTierCount();
+		int[] sizes = new int[tierCount];
+		int[] read = new int[tierCount];
+		int[] written = new int[tierCount];
+		for (int tier = PRIMARY_TIER; tier < tierCount; tier++) {
+			sizes[tier] = size(tier);
+		}
+		while (read[PRIMARY_TIER] < sizes[PRIMARY_TIER]) {
+			int index = read[PRIMARY_TIER];
+			if (matches(PRIMARY_TIER, index, affix) || matches(PRIMARY_TIER, index, clitic)) {
+				if (attachToNext) {
+					attachToNext(affix, clitic, sizes, read);
+				}
+				else {
+					attachToPrevious(affix, clitic, sizes, read, written);
+				}
+			}
+			else if (matches(PRIMARY_TIER, index, liaison)) {
+				attachToNext(affix, clitic, sizes, read);
+			}
+			else {
+				// The item at the current position is done, so move on in all tiers
+				for (int tier = PRIMARY_TIER; tier < tierCount; tier++) {
+					if (read[tier] < sizes[tier]) {
+						copy(tier, read[tier]++, written[tier]++);
 					}
 				}
-				else if (tok.equals(liaison)) {
-					String next = iterator.next();
-					iterator.set(tok + next);
-					iterator.previous();
-					iterator.previous();
-					iterator.remove();
-					// Process annotations accordingly
-					for (Entry<String, List<String>> anno : getAnnotations().entries()) {
-						String delimValue = null;
-						if (index >= anno.getValue().size()) {
-							log.warn("Mismatch between no. of morphemes and no. of annotations on layer \"" + anno.getKey() + "\" in document \"" + getDocName() + "\", reference \"" + getRef() + "\". Ignoring annotation.");
-						}
-						else {
-							delimValue = anno.getValue().get(index);
-							if (delimValue.equals(affix) || delimValue.equals(clitic)) {
-								String nextValue = anno.getValue().get(index + 1);
-								String newNextValue = delimValue + nextValue;
-								anno.getValue().remove(index);
-								anno.getValue().set(index, newNextValue);
-							}
-						}
-					}					
+				if (written[PRIMARY_TIER] > 1) {
+					group(written[PRIMARY_TIER] - 2, affix, clitic, liaison);
+				}
+			}
+		}
+		if (written[PRIMARY_TIER] > 0) {
+			group(written[PRIMARY_TIER] - 1, affix, clitic, liaison);
+		}
+		// Keep the unprocessed rest of the annotation tiers
+		for (int tier = PRIMARY_TIER; tier < tierCount; tier++) {
+			int size = written[tier];
+			for (int index = read[tier]; index < sizes[tier]; index++) {
+				copy(tier, index, size++);
+			}
+			truncate(tier, size);
+		}
+	}
+
+	/**
+	 * Attaches the delimiter at the current position to the next
+	 * morpheme, and any delimiters at the same position in the
+	 * annotations to the next annotation.
+	 *
+	 * @param affix The affix delimiter string
+	 * @param clitic The clitic delimiter string 
+	 * @param sizes The original sizes of the tiers
+	 * @param read The read indices of the tiers
+	 */
+	private void attachToNext(String affix, String clitic, int[] sizes, int[] read) {
+		if (read[PRIMARY_TIER] + 1 >= sizes[PRIMARY_TIER]) {
+			throw new NoSuchElementException();
+		}
+		concat(PRIMARY_TIER, read[PRIMARY_TIER] + 1, read[PRIMARY_TIER], read[PRIMARY_TIER] + 1);
+		read[PRIMARY_TIER]++;
+		// Process annotations accordingly
+		for (int tier = PRIMARY_TIER + 1; tier < sizes.length; tier++) {
+			int index = read[tier];
+			if (index >= sizes[tier]) {
+				warnings.warn(log, WarningCategory.MORPH_ANNOTATION_MISMATCH, getDocName(), "Mismatch between no. of morphemes and no. of annotations on layer \"{}\" in document \"{}\", reference \"{}\". Ignoring annotation.", getTierName(tier), getDocName(), getRef());
+			}
+			else if (matches(tier, index, affix) || matches(tier, index, clitic)) {
+				if (index + 1 >= sizes[tier]) {
+					throw new IndexOutOfBoundsException("Index: " + (index + 1) + ", Size: " + sizes[tier]);
 				}
+				concat(tier, index + 1, index, index + 1);
+				read[tier]++;
+			}
+		}
+	}
+
+	/**
+	 * Attaches the delimiter at the current position to the previous
+	 * morpheme, and any delimiters at the same position in the
+	 * annotations to the previous annotation.
+	 *
+	 * @param affix The affix delimiter string
+	 * @param clitic The clitic delimiter string 
+	 * @param sizes The original sizes of the tiers
+	 * @param read The read indices of the tiers
+	 * @param written The write indices of the tiers
+	 */
+	private void attachToPrevious(String affix, String clitic, int[] sizes, int[] read, int[] written) {
+		if (written[PRIMARY_TIER] == 0) {
+			throw new NoSuchElementException();
+		}
+		concat(PRIMARY_TIER, written[PRIMARY_TIER] - 1, written[PRIMARY_TIER] - 1, read[PRIMARY_TIER]);
+		read[PRIMARY_TIER]++;
+		// Process annotations accordingly
+		for (int tier = PRIMARY_TIER + 1; tier < sizes.length; tier++) {
+			int index = read[tier];
+			if (index >= sizes[tier]) {
+				throw new IndexOutOfBoundsException("Index: " + written[PRIMARY_TIER] + ", Size: " + written[tier]);
+			}
+			if (matches(tier, index, affix) || matches(tier, index, clitic)) {
+				concat(tier, written[tier] - 1, written[tier] - 1, index);
+				read[tier]++;
 			}
 		}
 	}
 
 	/**
-	 * @return the morphWords
+	 * Adds a final morpheme to the morpheme groups. A morpheme
+	 * ending in an affix or clitic delimiter is grouped with the
+	 * following morpheme. A group starting with an affix, clitic
+	 * or liaison delimiter is added to the previous morphological
+	 * word, if any, and is kept as a group of its own otherwise. 
+	 * 
+	 * Morphemes must be added in order.
+	 *
+	 * @param index The index of the morpheme
+	 * @param affix The affix delimiter string
+	 * @param clitic The clitic delimiter string
+	 * @param liaison The liaison delimiter string
+	 */
+	private void group(int index, String affix, String clitic, String liaison) {
+		if (endsWith(PRIMARY_TIER, index, affix) || endsWith(PRIMARY_TIER, index, clitic)) {
+			return;
+		}
+		if (startsWith(PRIMARY_TIER, prefixStart, affix) || startsWith(PRIMARY_TIER, prefixStart, clitic) || startsWith(PRIMARY_TIER, prefixStart, liaison)) {
+			if (morphWordCount > 0) {
+				// Extend the last group
+				groupStarts[groupCount] = index + 1;
+			}
+			else {
+				log.debug("Reference {} in document {} does not contain suffixed morphemes, hence skipping concatenation.", ref, docName);
+				addGroup(index + 1);
+			}
+		}
+		else {
+			addGroup(index + 1);
+			morphWordCount++;
+		}
+		prefixStart = index + 1;
+	}
+
+	private void addGroup(int end) {
+		if (groupCount + 2 > groupStarts.length) {
+			groupStarts = Arrays.copyOf(groupStarts, groupStarts.length * 2);
+		}
+		groupStarts[++groupCount] = end;
+	}
+
+	/**
+	 * Sets the aggregator that frequent warnings are counted by.
+	 *
+	 * @param warnings The aggregator for frequent warnings.
+	 * @return This object.
+	 */
+	public MorphLayerData setWarnings(WarningAggregator warnings) {
+		this.warnings = warnings == null ? WarningAggregator.UNAGGREGATED : warnings;
+		return this;
+	}
+
+	/**
+	 * @return The number of morphological words.
+	 */
+	public int getMorphWordCount() {
+		return morphWordCount;
+	}
+
+	/**
+	 * Returns the number of morpheme groups. This is the number of
+	 * morphological words, plus the number of leading groups of
+	 * suffixes which could not be added to a preceding word.
+	 * 
+	 * @return The number of morpheme groups.
+	 */
+	public int getGroupCount() {
+		return groupCount;
+	}
+
+	/**
+	 * Returns the index of the first morpheme of each morpheme
+	 * group, followed by the end index of the last group. The
+	 * returned array is a copy, so changes to it are not
+	 * reflected in this object.
+	 *
+	 * @return The group starts.
 	 */
+	public int[] getGroupStarts() {
+		return Arrays.copyOf(groupStarts, groupCount + 1);
+	}
+
+	/**
+	 * @param group The index of the morpheme group
+	 * @return The number of morphemes in the group.
+	 * @throws IndexOutOfBoundsException if there is no group at the index
+	 */
+	public int getGroupSize(int group) {
+		if (group < 0 || group >= groupCount) {
+			throw new IndexOutOfBoundsException("Index: " + group + ", Size: " + groupCount);
+		}
+		return groupStarts[group + 1] - groupStarts[group];
+	}
+
+	/**
+	 * Returns the "morphological words", i.e., the concatenated
+	 * morphemes of each group which forms a morphological word.
+	 * Leading groups of suffixes which could not be added to a
+	 * preceding word are not included.
+	 * 
+	 * @return A new list of the morphological words.
+	 * @deprecated The morphological words are no longer built as
+	 * strings. Use {@link #getMorphWordCount()}, {@link #getGroupSize(int)}
+	 * and {@link #get(int, int)} instead.
+	 */
+	@Deprecated
 	public final List<String> getMorphWords() {
+		List<String> morphWords = new ArrayList<>(morphWordCount);
+		StringBuilder builder = new StringBuilder();
+		for (int group = groupCount - morphWordCount; group < groupCount; group++) {
+			builder.setLength(0);
+			for (int index = groupStarts[group]; index < groupStarts[group + 1]; index++) {
+				builder.append(get(PRIMARY_TIER, index));
+			}
+			morphWords.add(builder.toString());
+		}
 		return morphWords;
 	}
 
 	/**
-	 * @return the morphemesInMorphWordList
+	 * Returns the morphemes of each morpheme group, including
+	 * leading groups of suffixes which could not be added to a
+	 * preceding word.
+	 * 
+	 * @return A new list of the morphemes of each group.
+	 * @deprecated The morpheme groups are no longer built as
+	 * arrays. Use {@link #getGroupCount()}, {@link #getGroupSize(int)}
+	 * and {@link #get(int, int)} instead.
 	 */
+	@Deprecated
 	public final ArrayList<String[]> getMorphemesInMorphWordList() {
+		ArrayList<String[]> morphemesInMorphWordList = new ArrayList<>(groupCount);
+		for (int group = 0; group < groupCount; group++) {
+			String[] morphemes = new String[groupStarts[group + 1] - groupStarts[group]];
+			for (int index = 0; index < morphemes.length; index++) {
+				morphemes[index] = get(PRIMARY_TIER, groupStarts[group] + index);
+			}
+			morphemesInMorphWordList.add(morphemes);
+		}
 		return morphemesInMorphWordList;
 	}
 
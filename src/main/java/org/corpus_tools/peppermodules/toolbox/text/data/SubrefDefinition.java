@@ -19,6 +19,7 @@
  *******************************************************************************/
 package org.corpus_tools.peppermodules.toolbox.text.data;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.commons.lang3.Range;
@@ -35,6 +36,9 @@ import org.apache.commons.lang3.Range;
  * A subref has a type and one or more ranges of token indices which it
  * spans. It can have a specified target layer (the lexical or morphological
  * token layer) and an identifier.
+ * 
+ * The ranges are stored as pairs of primitive `int` bounds, both of
+ * which are inclusive.
  *
  * @author Stephan Druskat <[mail@sdruskat.net](mailto:mail@sdruskat.net)>
  */
@@ -82,16 +86,16 @@ public class SubrefDefinition {
 
 	private SUBREF_TYPE type;
 	private String identifier;
-	private List<Range<Integer>> ranges;
+	private int[] ranges;
 	private String targetLayer;
 
 	/**
 	 * @param type
-	 * @param ranges
+	 * @param ranges The ranges as consecutive pairs of minimum and maximum token index
 	 * @param identifier
 	 * @param targetLayer
 	 */
-	public SubrefDefinition(SUBREF_TYPE type, List<Range<Integer>> ranges, String identifier, String targetLayer) {
+	public SubrefDefinition(SUBREF_TYPE type, int[] ranges, String identifier, String targetLayer) {
 		this.type = type;
 		this.identifier = identifier;
 		this.ranges = ranges;
@@ -113,10 +117,37 @@ public class SubrefDefinition {
 	}
 
 	/**
-	 * @return the ranges
+	 * @return the number of ranges
+	 */
+	public int getRangeCount() {
+		return ranges.length / 2;
+	}
+
+	/**
+	 * @param index The index of the range
+	 * @return the minimum token index of the range at `index`
+	 */
+	public int getRangeStart(int index) {
+		return ranges[2 * index];
+	}
+
+	/**
+	 * @param index The index of the range
+	 * @return the maximum token index of the range at `index`
+	 */
+	public int getRangeEnd(int index) {
+		return ranges[2 * index + 1];
+	}
+
+	/**
+	 * @return the ranges, as a newly created list of {@link Range} objects
 	 */
 	public List<Range<Integer>> getRanges() {
-		return ranges;
+		List<Range<Integer>> list = new ArrayList<>(getRangeCount());
+		for (int i = 0; i < ranges.length; i += 2) {
+			list.add(Range.between(ranges[i], ranges[i + 1]));
+		}
+		return list;
 	}
 
 	/**
@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * Copyright (c) 2016, 2018ff. Stephan Druskat
+ * Exploitation rights for this version belong exclusively to Humboldt-Universität zu Berlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Stephan Druskat (mail@sdruskat.net) - initial API and implementation
+ *******************************************************************************/
+package org.corpus_tools.peppermodules.toolbox.text.data;
+
+import java.util.Arrays;
+
+import org.corpus_tools.peppermodules.toolbox.text.utils.ToolboxTextModulesUtils;
+
+/**
+ * A reusable segmenter which splits a line on runs of whitespace
+ * and records the boundaries of the resulting segments as pairs of
+ * `int` offsets into the line, rather than as {@link String} objects.
+ * 
+ * The segments are the same as those returned by
+ * `line.split("\\s+")`, i.e.,
+ * 
+ * - a line starting with whitespace yields an empty first segment,
+ * - trailing whitespace yields no segment,
+ * - an empty line yields a single empty segment, and
+ * - a line containing only whitespace yields no segments.
+ * 
+ * The offsets are valid until the next call to {@link #segment(CharSequence, int, int)}.
+ *
+ * @author Stephan Druskat <[mail@sdruskat.net](mailto:mail@sdruskat.net)>
+ *
+ */
+public final class WhitespaceSegmenter {
+	
+	private int[] bounds = new int[32];
+	private int size = 0;
+	
+	/**
+	 * Segments a whole line.
+	 *
+	 * @param line The line to segment.
+	 * @return The number of segments found.
+	 * 
+	 * @see #segment(CharSequence, int, int)
+	 */
+	public int segment(CharSequence line) {
+		return segment(line, 0, line.length());
+	}
+
+	/**
+	 * Segments the region `[from, to)` of a line. The recorded offsets
+	 * are offsets into `line`, not into the region.
+	 *
+	 * @param line The line containing the region to segment.
+	 * @param from The start index of the region, inclusive.
+	 * @param to The end index of the region, exclusive.
+	 * @return The number of segments found.
+	 */
+	public int segment(CharSequence line, int from, int to) {
+		size = 0;
+		if (from == to) {
+			add(from, to);
+			return size;
+		}
+		int i = from;
+		if (ToolboxTextModulesUtils.isWhitespace(line.charAt(i))) {
+			// Leading empty segment, as with String#split
+			add(from, from);
+		}
+		while (i < to) {
+			while (i < to && ToolboxTextModulesUtils.isWhitespace(line.charAt(i))) {
+				i++;
+			}
+			if (i == to) {
+				break;
+			}
+			int start = i;
+			while (i < to && !ToolboxTextModulesUtils.isWhitespace(line.charAt(i))) {
+				i++;
+			}
+			add(start, i);
+		}
+		if (size == 1 && bounds[0] == bounds[1]) {
+			// Whitespace only: trailing empty segments are dropped
+			size = 0;
+		}
+		return size;
+	}
+	
+	private void add(int start, int end) {
+		if (size * 2 + 2 > bounds.length) {
+			bounds = Arrays.copyOf(bounds, bounds.length * 2);
+		}
+		bounds[size * 2] = start;
+		bounds[size * 2 + 1] = end;
+		size++;
+	}
+
+	/**
+	 * @return The number of segments found by the last call to {@link #segment(CharSequence, int, int)}.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @param i The index of the segment.
+	 * @return The start offset of the segment, inclusive.
+	 */
+	public int getStart(int i) {
+		return bounds[i * 2];
+	}
+
+	/**
+	 * @param i The index of the segment.
+	 * @return The end offset of the segment, exclusive.
+	 */
+	public int getEnd(int i) {
+		return bounds[i * 2 + 1];
+	}
+
+}
@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright (c) 2016, 2018ff. Stephan Druskat
+ * Exploitation rights for this version belong exclusively to Humboldt-Universität zu Berlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Stephan Druskat (mail@sdruskat.net) - initial API and implementation
+ *******************************************************************************/
+package org.corpus_tools.peppermodules.toolbox.text.diagnostics;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.corpus_tools.peppermodules.toolbox.text.properties.ToolboxTextImporterProperties;
+
+/**
+ * A run-scoped sink for {@link Interl11nEvent}s, which can be shared
+ * by all mappers of an import.
+ * 
+ * The sink retains at most a fixed number of events, and only
+ * counts all further events. The retained events can be written to
+ * a report file in a machine-readable format, i.e., tab-separated
+ * values with a header line, via {@link #write(File)}.
+ *
+ * @author Stephan Druskat <[mail@sdruskat.net](mailto:mail@sdruskat.net)>
+ *
+ * @see ToolboxTextImporterProperties#PROP_INTERL11N_REPORT
+ */
+public class Interl11nDiagnostics {
+	
+	private static final String[] COLUMNS = new String[] { "document", "ref", "tier", "tokenTier", "expected", "actual", "action" };
+	
+	private final int limit;
+	private final List<Interl11nEvent> events = new ArrayList<>();
+	private long count = 0;
+
+	/**
+	 * @param limit The maximum number of events to retain, `0` if events should only be counted.
+	 */
+	public Interl11nDiagnostics(int limit) {
+		this.limit = Math.max(limit, 0);
+	}
+
+	/**
+	 * Records an event.
+	 *
+	 * @param event The event to record.
+	 */
+	public synchronized void report(Interl11nEvent event) {
+		count++;
+		if (events.size() < limit) {
+			events.add(event);
+		}
+	}
+
+	/**
+	 * @return The number of all events reported so far, including those that have not been retained.
+	 */
+	public synchronized long getCount() {
+		return count;
+	}
+
+	/**
+	 * @return A copy of the list of retained events, in the order in which they have been reported.
+	 */
+	public synchronized List<Interl11nEvent> getEvents() {
+		return new ArrayList<>(events);
+	}
+
+	/**
+	 * Writes the retained events to a UTF-8 encoded file
+	 * with tab-separated values, one event per line, following
+	 * a header line. Tabs and line breaks in values are replaced
+	 * with spaces.
+	 *
+	 * @param file The file to write to.
+	 * @throws IOException If the file cannot be written.
+	 */
+	public void write(File file) throws IOException {
+		List<Interl11nEvent> retained = getEvents();
+		File parent = file.getAbsoluteFile().getParentFile();
+		if (parent != null && !parent.exists()) {
+			Files.createDirectories(parent.toPath());
+		}
+		try (Writer writer = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file.toPath()), StandardCharsets.UTF_8))) {
+			for (int i = 0; i < COLUMNS.length; i++) {
+				writer.write(i == 0 ? COLUMNS[i] : "\t" + COLUMNS[i]);
+			}
+			writer.write('\n');
+			for (Interl11nEvent event : retained) {
+				writer.write(clean(event.getDocument()));
+				writer.write('\t');
+				writer.write(clean(event.getRef()));
+				writer.write('\t');
+				writer.write(clean(event.getTier()));
+				writer.write('\t');
+				writer.write(clean(event.getTokenTier()));
+				writer.write('\t');
+				writer.write(Integer.toString(event.getExpected()));
+				writer.write('\t');
+				writer.write(Integer.toString(event.getActual()));
+				writer.write('\t');
+				writer.write(event.getAction().name());
+				writer.write('\n');
+			}
+		}
+	}
+
+	private static String clean(String value) {
+		if (value == null) {
+			return "";
+		}
+		return value.replace('\t', ' ').replace('\r', ' ').replace('\n', ' ');
+	}
+
+}
@@ -0,0 +1,143 @@
+/*******************************************************************************
+ * Copyright (c) 2016, 2018ff. Stephan Druskat
+ * Exploitation rights for this version belong exclusively to Humboldt-Universität zu Berlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Stephan Druskat (mail@sdruskat.net) - initial API and implementation
+ *******************************************************************************/
+package org.corpus_tools.peppermodules.toolbox.text.diagnostics;
+
+/**
+ * A single interlinearization (interl11n) error found during
+ * the import, i.e., a mismatch between the number of items on a
+ * tier and the number of tokens the tier is interlinearized with.
+ * 
+ * Events only hold the data describing the error. A human-readable
+ * message is rendered on demand via {@link #render()}.
+ *
+ * @author Stephan Druskat <[mail@sdruskat.net](mailto:mail@sdruskat.net)>
+ *
+ */
+public final class Interl11nEvent {
+	
+	/**
+	 * The action that has been taken to fix an interl11n error.
+	 */
+	public enum Action {
+		/** Excess items have been removed. */
+		TRUNCATED,
+		/** Excess items have been concatenated to the last non-excess item. */
+		CONCATENATED,
+		/** Missing items have been filled in with the missing annotation string. */
+		PADDED,
+		/** The error has been left as is. */
+		NONE
+	}
+	
+	private final String document;
+	private final String ref;
+	private final String tier;
+	private final String tokenTier;
+	private final int expected;
+	private final int actual;
+	private final Action action;
+
+	/**
+	 * @param document The name of the document.
+	 * @param ref The reference containing the faulty tier.
+	 * @param tier The marker of the faulty tier.
+	 * @param tokenTier The marker of the tier that `tier` is interlinearized with.
+	 * @param expected The expected number of items, i.e., the number of items on `tokenTier`.
+	 * @param actual The actual number of items on `tier`.
+	 * @param action The action that has been taken.
+	 */
+	public Interl11nEvent(String document, String ref, String tier, String tokenTier, int expected, int actual, Action action) {
+		this.document = document;
+		this.ref = ref;
+		this.tier = tier;
+		this.tokenTier = tokenTier;
+		this.expected = expected;
+		this.actual = actual;
+		this.action = action;
+	}
+
+	/**
+	 * Renders the event as a human-readable message.
+	 *
+	 * @return The message describing the event.
+	 */
+	public String render() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("Document \"").append(document).append("\", reference \"").append(ref).append("\": The number of '")
+				.append(tier).append("' items is ").append(actual > expected ? "larger" : "lower")
+				.append(" than the number of '").append(tokenTier).append("' items (").append(actual).append(" vs. ")
+				.append(expected).append(")!");
+		switch (action) {
+		case TRUNCATED:
+			sb.append(" Removed ").append(actual - expected).append(" excess item(s).");
+			break;
+		case CONCATENATED:
+			sb.append(" Concatenated ").append(actual - expected).append(" excess item(s) to the last item.");
+			break;
+		case PADDED:
+			sb.append(" Added ").append(expected - actual).append(" missing item(s).");
+			break;
+		default:
+			break;
+		}
+		return sb.toString();
+	}
+	
+	@Override
+	public String toString() {
+		return render();
+	}
+
+	@SuppressWarnings("javadoc")
+	public String getDocument() {
+		return document;
+	}
+
+	@SuppressWarnings("javadoc")
+	public String getRef() {
+		return ref;
+	}
+
+	@SuppressWarnings("javadoc")
+	public String getTier() {
+		return tier;
+	}
+
+	@SuppressWarnings("javadoc")
+	public String getTokenTier() {
+		return tokenTier;
+	}
+
+	@SuppressWarnings("javadoc")
+	public int getExpected() {
+		return expected;
+	}
+
+	@SuppressWarnings("javadoc")
+	public int getActual() {
+		return actual;
+	}
+
+	@SuppressWarnings("javadoc")
+	public Action getAction() {
+		return action;
+	}
+
+}
@@ -0,0 +1,155 @@
+/*******************************************************************************
+ * Copyright (c) 2016, 2018ff. Stephan Druskat
+ * Exploitation rights for this version belong exclusively to Humboldt-Universität zu Berlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Stephan Druskat (mail@sdruskat.net) - initial API and implementation
+ *******************************************************************************/
+package org.corpus_tools.peppermodules.toolbox.text.diagnostics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.corpus_tools.peppermodules.toolbox.text.properties.ToolboxTextImporterProperties;
+import org.slf4j.Logger;
+
+/**
+ * A run-scoped aggregator for frequent warnings, which can be
+ * shared by all mappers of an import.
+ * 
+ * The aggregator counts the warnings per {@link WarningCategory}
+ * and document, but only logs the first few warnings of each
+ * category. At the end of the import, the counts can be logged
+ * as a summary table via {@link #logSummary(Logger)}.
+ * 
+ * Counting does not lock, so that mappers running in
+ * parallel do not have to wait for each other or for
+ * the log appender.
+ *
+ * @author Stephan Druskat <[mail@sdruskat.net](mailto:mail@sdruskat.net)>
+ *
+ * @see ToolboxTextImporterProperties#PROP_WARNING_EXAMPLES
+ */
+public class WarningAggregator {
+	
+	/**
+	 * An aggregator which logs all warnings and does not count
+	 * them, for use outside of an import.
+	 */
+	public static final WarningAggregator UNAGGREGATED = new WarningAggregator(-1);
+	
+	private final int examples;
+	private final Map<WarningCategory, AtomicLong> totals = new EnumMap<>(WarningCategory.class);
+	private final Map<WarningCategory, ConcurrentMap<String, AtomicLong>> counts = new EnumMap<>(WarningCategory.class);
+
+	/**
+	 * @param examples The number of warnings to log per category, or a negative number if all warnings should be logged without being counted.
+	 */
+	public WarningAggregator(int examples) {
+		this.examples = examples;
+		for (WarningCategory category : WarningCategory.values()) {
+			totals.put(category, new AtomicLong());
+			counts.put(category, new ConcurrentHashMap<String, AtomicLong>());
+		}
+	}
+
+	/**
+	 * Counts a warning, and logs it if it is among the first
+	 * warnings of its category.
+	 *
+	 * @param log The logger to log the warning to.
+	 * @param category The category of the warning.
+	 * @param document The name of the document the warning refers to.
+	 * @param format The format string of the warning, as for {@link Logger#warn(String, Object...)}.
+	 * @param arguments The arguments of the warning.
+	 */
+	public void warn(Logger log, WarningCategory category, String document, String format, Object... arguments) {
+		if (examples < 0) {
+			log.warn(format, arguments);
+			return;
+		}
+		ConcurrentMap<String, AtomicLong> documentCounts = counts.get(category);
+		String key = String.valueOf(document);
+		AtomicLong count = documentCounts.get(key);
+		if (count == null) {
+			AtomicLong newCount = new AtomicLong();
+			count = documentCounts.putIfAbsent(key, newCount);
+			if (count == null) {
+				count = newCount;
+			}
+		}
+		count.incrementAndGet();
+		long total = totals.get(category).incrementAndGet();
+		if (total <= examples) {
+			log.warn(format, arguments);
+			if (total == examples) {
+				log.warn("Logged " + examples + " warnings of category '" + category.getDescription() + "'. Further warnings of this category will only be counted and listed in the summary at the end of the import.");
+			}
+		}
+	}
+
+	/**
+	 * @param category The category to get the count for.
+	 * @return The number of warnings of `category` counted so far.
+	 */
+	public long getCount(WarningCategory category) {
+		return totals.get(category).get();
+	}
+
+	/**
+	 * @param category The category to get the count for.
+	 * @param document The name of the document to get the count for.
+	 * @return The number of warnings of `category` for `document` counted so far.
+	 */
+	public long getCount(WarningCategory category, String document) {
+		AtomicLong count = counts.get(category).get(String.valueOf(document));
+		return count == null ? 0 : count.get();
+	}
+
+	/**
+	 * Logs a table listing the number of warnings per category
+	 * and document, if any warnings have been counted.
+	 *
+	 * @param log The logger to log the summary to.
+	 */
+	public void logSummary(Logger log) {
+		StringBuilder table = new StringBuilder();
+		for (WarningCategory category : WarningCategory.values()) {
+			long total = getCount(category);
+			if (total == 0) {
+				continue;
+			}
+			table.append('\n').append(category.getDescription()).append(": ").append(total);
+			if (total > examples) {
+				table.append(" (").append(total - examples).append(" not logged)");
+			}
+			List<String> documents = new ArrayList<>(counts.get(category).keySet());
+			Collections.sort(documents);
+			for (String document : documents) {
+				table.append("\n\t").append(counts.get(category).get(document).get()).append('\t').append(document);
+			}
+		}
+		if (table.length() > 0) {
+			log.warn("Summary of warnings per category and document:" + table);
+		}
+	}
+
+}
@@ -0,0 +1,52 @@
+/*******************************************************************************
+ * Copyright (c) 2016, 2018ff. Stephan Druskat
+ * Exploitation rights for this version belong exclusively to Humboldt-Universität zu Berlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Stephan Druskat (mail@sdruskat.net) - initial API and implementation
+ *******************************************************************************/
+package org.corpus_tools.peppermodules.toolbox.text.diagnostics;
+
+/**
+ * Categories of warnings which can occur very often
+ * during an import, and are therefore aggregated by a
+ * {@link WarningAggregator}.
+ *
+ * @author Stephan Druskat <[mail@sdruskat.net](mailto:mail@sdruskat.net)>
+ *
+ */
+public enum WarningCategory {
+	
+	/** A subref whose token indices are outside of the range of token indices. */
+	UNRESOLVED_SUBREF("Unresolved subrefs"),
+	/** A subref range whose maximum is larger than the highest token index. */
+	SUBREF_RANGE_EXCEEDED("Subref ranges exceeding the tokens"),
+	/** A morphological annotation tier which is shorter than the morphemes. */
+	MORPH_ANNOTATION_MISMATCH("Morpheme/annotation mismatches"),
+	/** A \ref that does not belong to any \id. */
+	ORPHAN_REF("Orphan \\refs");
+	
+	private final String description;
+
+	private WarningCategory(String description) {
+		this.description = description;
+	}
+
+	@SuppressWarnings("javadoc")
+	public String getDescription() {
+		return description;
+	}
+
+}
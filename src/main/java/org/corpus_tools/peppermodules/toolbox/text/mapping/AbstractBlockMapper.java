@@ -19,26 +19,20 @@
  *******************************************************************************/
 package org.corpus_tools.peppermodules.toolbox.text.mapping;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.StringReader;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.ListIterator;
-import java.util.Set;
+import java.util.Map;
 
 import org.corpus_tools.pepper.modules.PepperModuleProperties;
 import org.corpus_tools.pepper.modules.exceptions.PepperModuleException;
 import org.corpus_tools.peppermodules.toolbox.text.AbstractToolboxTextMapper;
+import org.corpus_tools.peppermodules.toolbox.text.properties.ToolboxTextImporterConfiguration;
 import org.corpus_tools.peppermodules.toolbox.text.properties.ToolboxTextImporterProperties;
+import org.corpus_tools.peppermodules.toolbox.text.utils.ToolboxTextModulesUtils;
 import org.corpus_tools.salt.common.SDocumentGraph;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ListMultimap;
 
 /**
@@ -60,8 +54,16 @@ abstract class AbstractBlockMapper extends AbstractToolboxTextMapper {
 	protected final SDocumentGraph graph;
 	private final String trimmedInputString;
 	protected final ToolboxTextImporterProperties properties;
-	protected final List<String> lines = new ArrayList<>();
-	protected final ListMultimap<String, String> markerContentMap = ArrayListMultimap.create();
+	protected final ToolboxTextImporterConfiguration config;
+	/**
+	 * The markers of the block's lines, without the preceding backslash.
+	 */
+	protected final List<String> markers;
+	/**
+	 * The contents of the block's lines, at the same indices as their markers in {@link #markers}.
+	 */
+	protected final List<String> contents;
+	protected final ListMultimap<String, String> markerContentMap;
 
 	/**
 	 * @param properties The respective instance of {@link ToolboxTextImporterProperties} used for the conversion. 
@@ -79,121 +81,165 @@ abstract class AbstractBlockMapper extends AbstractToolboxTextMapper {
 		else {
 			this.properties = (ToolboxTextImporterProperties) properties;
 		}
+		this.config = this.properties.getConfiguration();
+		// Reuse the line lists and marker map of the current thread
+		ScratchContext scratch = ScratchContext.get();
+		this.markers = scratch.getMarkers();
+		this.contents = scratch.getContents();
+		this.markerContentMap = scratch.getMarkerContentMap();
 		prepare();
 	}
 
 	/**
 	 * Prepares the {@link #trimmedInputString} for mapping:
 	 * 
-	 * - Reads the {@link #trimmedInputString} line by line.
+	 * - Tokenizes the {@link #trimmedInputString} into lines in a single pass
+	 * over its characters.
 	 * - Trims the lines.
-	 * - Adds the lines to the {@link #lines} {@link List}:
-	 *     - If the lines starts with a marker ("\"), add it.
-	 *     - If it doesn't, add it to the last line in {@link #lines}.
-	 * - Removes all empty and <code>null</code> lines.
+	 * - Emits a record for each line which starts with a marker ("\") and
+	 * contains more than the marker: The marker goes to {@link #markers}, the 
+	 * content after the first sequence of whitespaces to {@link #contents}.
+	 * Lines not starting with a marker are joined to the preceding marker
+	 * line in a reused buffer.
+	 * - Handles duplicate markers.
+	 * - Builds the {@link #markerContentMap}.
 	 */
 	private void prepare() {
-		// Break input string up into lines
-		try (BufferedReader br = new BufferedReader(new StringReader(trimmedInputString))) {
-			String line;
-			while ((line = br.readLine()) != null) {
-				line = line.trim();
-				if (line.startsWith("\\")) {
-					// Check whether the line contains more than a marker
-					if (line.split("\\s+", 2).length > 1) {
-						lines.add(line);
+		final String input = trimmedInputString;
+		final int length = input.length();
+		// The marker line currently being built, joined with its continuation lines
+		StringBuilder line = ScratchContext.get().getCharBuffer();
+		// Index of the end of the marker in the current line, or -1 if there is no current line
+		int markerEnd = -1;
+		int contentStart = -1;
+		int lineStart = 0;
+		while (lineStart < length) {
+			// Find the end of the line, which may be terminated by \n, \r, or \r\n
+			int lineEnd = lineStart;
+			char c;
+			while (lineEnd < length && (c = input.charAt(lineEnd)) != '\n' && c != '\r') {
+				lineEnd++;
+			}
+			int nextLineStart = lineEnd + 1;
+			if (nextLineStart < length && input.charAt(lineEnd) == '\r' && input.charAt(nextLineStart) == '\n') {
+				nextLineStart++;
+			}
+			// Trim the line
+			int start = lineStart;
+			int end = lineEnd;
+			while (start < end && input.charAt(start) <= ' ') {
+				start++;
+			}
+			while (end > start && input.charAt(end - 1) <= ' ') {
+				end--;
+			}
+			if (start < end && input.charAt(start) == '\\') {
+				int whitespace = start + 1;
+				while (whitespace < end && !ToolboxTextModulesUtils.isWhitespace(input.charAt(whitespace))) {
+					whitespace++;
+				}
+				// Check whether the line contains more than a marker
+				if (whitespace < end) {
+					if (markerEnd >= 0) {
+						emit(line, markerEnd, contentStart);
 					}
-					else {
-						log.debug("Ignoring the following line in candidacy to be included in '" + graph.getDocument().getName() + "' as it contains only a marker: '" + line + "'!");
+					line.setLength(0);
+					line.append(input, start, end);
+					markerEnd = whitespace - start;
+					contentStart = markerEnd + 1;
+					while (ToolboxTextModulesUtils.isWhitespace(line.charAt(contentStart))) {
+						contentStart++;
 					}
 				}
-				/*
-				 * The first line cannot NOT start with \, as defined by the
-				 * parsing mechanisms towards refMaps, etc. The latter looks for
-				 * "\" + id marker and uses the offset of the found instance.
-				 * Hence, rawLines must always have a size > 0 once a line that
-				 * doesn't start with "\" is hit. Hence, no null checks needed.
-				 */
 				else {
-					// Concatenate all lines not starting with \\, i.e.,
-					// markers, to line before
-					int lastIndex = lines.size() - 1;
-					String lastLine = lines.get(lastIndex);
-					lines.set(lastIndex, lastLine + " " + line);
+					log.debug("Ignoring the following line in candidacy to be included in '" + graph.getDocument().getName() + "' as it contains only a marker: '" + input.substring(start, end) + "'!");
 				}
 			}
+			/*
+			 * The first line cannot NOT start with \, as defined by the
+			 * parsing mechanisms towards refMaps, etc. The latter looks for
+			 * "\" + id marker and uses the offset of the found instance.
+			 */
+			else if (markerEnd >= 0) {
+				// Concatenate all lines not starting with \\, i.e.,
+				// markers, to line before
+				line.append(' ').append(input, start, end);
+			}
+			else {
+				log.debug("Ignoring the following line in candidacy to be included in '" + graph.getDocument().getName() + "' as it does not follow a marker: '" + input.substring(start, end) + "'!");
+			}
+			lineStart = nextLineStart;
 		}
-		catch (IOException e) {
-			throw new PepperModuleException("Error preparing the String " + trimmedInputString + " for mapping!", e);
+		if (markerEnd >= 0) {
+			emit(line, markerEnd, contentStart);
 		}
-		// Drop empty lines
-		lines.removeAll(Arrays.asList("", null));
-		// Sanity check: No duplicate marker lines allowed!
-		Set<String> existingMarkers = new HashSet<>();
-		Set<String> duplicateMarkers = new HashSet<>();
-		for (Iterator<String> iterator = lines.iterator(); iterator.hasNext();) {
-			String l = iterator.next();
-			String marker;
-			if (!existingMarkers.add(marker = l.split(" ", 2)[0])) {
-				/* 
-				 * Both the subref marker and the lines that can contain annotations to
-				 * be applied to subrefs can occur more than once in a block, hence
-				 * test first if the marker under scrutiny belongs to either group before
-				 * attempting to re-work lines.
-				 */
-				boolean hasSubRefAnnoMarkers = properties.getSubRefAnnotationMarkers() != null;
-				String subrefMarker = properties.getSubrefDefinitionMarker();
-				/* 
-				 * If no subref annotation markers have been defined, set the boolean 
-				 * depending on the subref marker only, else use both the latter and
-				 * whether the marker is defined as a subref annotation marker.
-				 */
-				boolean doProcessMarker = hasSubRefAnnoMarkers ? 
-						(!marker.substring(1).equals(subrefMarker) && 
-								!properties.getSubRefAnnotationMarkers().contains(marker.substring(1))) : 
-						(!marker.substring(1).equals(subrefMarker)) ;
-				if (doProcessMarker) {
-					if (properties.mergeDuplicateMarkers()) {
-						log.debug("Found more than one line marked with '" + marker + "':\n\"" + l + "\"\nAttempting to concatenate all lines with the same marker in the next step.");
-						duplicateMarkers.add(marker);
+		/*
+		 * Sanity check: No duplicate marker lines allowed!
+		 * 
+		 * Duplicates are merged into, or dropped in favour of, the first line with the
+		 * same marker in a single pass, compacting the records in place. The first
+		 * lines are kept in a map in the order of their first occurrence, with their
+		 * contents in a buffer to which the contents of duplicates are appended.
+		 */
+		final boolean merge = properties.mergeDuplicateMarkers();
+		final Map<String, StringBuilder> firstLines = new LinkedHashMap<>();
+		final int size = markers.size();
+		int kept = 0;
+		for (int i = 0; i < size; i++) {
+			String marker = markers.get(i);
+			String content = contents.get(i);
+			/* 
+			 * Both the subref marker and the lines that can contain annotations to
+			 * be applied to subrefs can occur more than once in a block, hence
+			 * test first if the marker under scrutiny belongs to either group before
+			 * attempting to re-work lines.
+			 */
+			if (!config.isRepeatableMarker(marker)) {
+				if (firstLines.containsKey(marker)) {
+					if (merge) {
+						log.debug("Found more than one line marked with '\\" + marker + "':\n\"\\" + marker + " " + content + "\"\nConcatenating it to the first line marked with it.");
+						firstLines.get(marker).append(' ').append(content);
 					}
 					else {
-						log.debug("Found more than one line marked with '" + marker + "':\n\"" + l + "\"\nDropping all but the first line marked with it.");
-						iterator.remove();
+						log.debug("Found more than one line marked with '\\" + marker + "':\n\"\\" + marker + " " + content + "\"\nDropping all but the first line marked with it.");
 					}
+					continue;
 				}
+				firstLines.put(marker, merge ? new StringBuilder(content) : null);
 			}
+			markers.set(kept, marker);
+			contents.set(kept, content);
+			kept++;
 		}
-		// Merge duplicate marker lines if selected via property
-		if (properties.mergeDuplicateMarkers() && !duplicateMarkers.isEmpty()) {
-			for (String duplicateMarker : duplicateMarkers) {
-				ListIterator<String> iterator = lines.listIterator();
-				int firstLineIndex = -1;
-				boolean firstLineSet = false;
-				while (iterator.hasNext()) {
-					int currentIndex = iterator.nextIndex();
-					String line = iterator.next();
-					if (line.startsWith(duplicateMarker + " ")) {
-						if (!firstLineSet) {
-							firstLineIndex = currentIndex;
-							firstLineSet = true;
-						}
-						else {
-							String oldLine = lines.get(firstLineIndex);
-							lines.set(firstLineIndex, oldLine.concat(" ").concat(line.split(" ", 2)[1]));
-							iterator.remove();
-						}
-					}
+		markers.subList(kept, size).clear();
+		contents.subList(kept, size).clear();
+		// Write back the contents of first lines to which duplicates have been appended
+		if (merge && kept < size) {
+			for (int i = 0; i < kept; i++) {
+				StringBuilder mergedContent = firstLines.get(markers.get(i));
+				if (mergedContent != null && mergedContent.length() != contents.get(i).length()) {
+					contents.set(i, mergedContent.toString());
 				}
 			}
 		}
 		// Build markerContentMap
-		for (String line : lines) {
-			String[] split = line.split("\\s+", 2);
-			markerContentMap.put(split[0].substring(1), split[1]);
+		for (int i = 0; i < markers.size(); i++) {
+			markerContentMap.put(markers.get(i), contents.get(i));
 		}
 	}
-	
+
+	/**
+	 * Emits the record for a complete marker line.
+	 *
+	 * @param line The line, including all joined continuation lines.
+	 * @param markerEnd The index of the end of the marker in `line`.
+	 * @param contentStart The index of the start of the content in `line`.
+	 */
+	private void emit(StringBuilder line, int markerEnd, int contentStart) {
+		markers.add(line.substring(1, markerEnd));
+		contents.add(line.substring(contentStart));
+	}
+
 	/**
 	 * The central mapping method.
 	 * 
@@ -206,6 +252,13 @@ abstract class AbstractBlockMapper extends AbstractToolboxTextMapper {
 	public abstract boolean map();
 
 	/**
+	 * Returns the map of markers to line contents of this block.
+	 * 
+	 * The map is the scratch map of the current thread, which is
+	 * cleared and refilled by the next mapper created on this thread.
+	 * Callers must therefore not retain it beyond the mapping of this
+	 * block, and copy it if they need its contents for longer.
+	 * 
 	 * @return the markerContentMap
 	 */
 	public final ListMultimap<String, String> getMarkerContentMap() {
@@ -0,0 +1,153 @@
+/*******************************************************************************
+ * Copyright (c) 2016, 2018ff. Stephan Druskat
+ * Exploitation rights for this version belong exclusively to Humboldt-Universität zu Berlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Stephan Druskat (mail@sdruskat.net) - initial API and implementation
+ *******************************************************************************/
+package org.corpus_tools.peppermodules.toolbox.text.mapping;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.corpus_tools.peppermodules.toolbox.text.diagnostics.Interl11nDiagnostics;
+import org.corpus_tools.peppermodules.toolbox.text.diagnostics.WarningAggregator;
+import org.corpus_tools.peppermodules.toolbox.text.properties.UnnamedRefNaming;
+import org.corpus_tools.peppermodules.toolbox.text.utils.InterningPool;
+import org.corpus_tools.peppermodules.toolbox.text.utils.InterningPool.DocumentInterner;
+import org.corpus_tools.salt.SaltFactory;
+import org.corpus_tools.salt.common.SDocumentGraph;
+import org.corpus_tools.salt.core.SLayer;
+
+/**
+ * The state shared by the mappers of a single document: the
+ * document graph and its layers, the index of its spans, the
+ * namer for its unnamed references, and the sinks for
+ * diagnostics, warnings and interned strings.
+ * 
+ * A context is created by the {@link ToolboxTextImportMapper} for
+ * each document, and passed to the {@link RefMapper}s and
+ * {@link SubrefMapper}s for the document's references.
+ * The interner and the namer for unnamed references are created
+ * on first use, i.e., once the document header has been mapped
+ * and the document has its final name.
+ *
+ * @author Stephan Druskat <[mail@sdruskat.net](mailto:mail@sdruskat.net)>
+ *
+ */
+public class DocumentContext {
+	
+	private final SDocumentGraph graph;
+	private final UnnamedRefNaming unnamedRefNaming;
+	private final Interl11nDiagnostics diagnostics;
+	private final WarningAggregator warnings;
+	private final InterningPool pool;
+	private final SpanIndex spans = new SpanIndex();
+	private final Map<String, SLayer> layers = new HashMap<>();
+	private DocumentInterner interner = null;
+	private UnnamedRefNamer unnamedRefs = null;
+
+	/**
+	 * @param graph The document graph.
+	 * @param unnamedRefNaming The strategy for naming references without a name.
+	 * @param diagnostics The sink to report interlinearization errors to, or `null` if they should only be logged.
+	 * @param warnings The aggregator for frequent warnings, or `null` if all warnings should be logged.
+	 * @param pool The pool to intern annotation keys and values in, or `null` if strings should not be interned.
+	 */
+	public DocumentContext(SDocumentGraph graph, UnnamedRefNaming unnamedRefNaming, Interl11nDiagnostics diagnostics, WarningAggregator warnings, InterningPool pool) {
+		this.graph = graph;
+		this.unnamedRefNaming = unnamedRefNaming;
+		this.diagnostics = diagnostics;
+		this.warnings = warnings == null ? WarningAggregator.UNAGGREGATED : warnings;
+		this.pool = pool;
+	}
+
+	/**
+	 * Returns the layer with the passed name, and creates and
+	 * adds it to the graph if it doesn't exist yet.
+	 *
+	 * @param name The name of the layer.
+	 * @return The layer with the name `name`.
+	 */
+	public SLayer getLayer(String name) {
+		SLayer layer = layers.get(name);
+		if (layer == null) {
+			layer = SaltFactory.createSLayer();
+			layer.setName(name);
+			graph.addLayer(layer);
+			layers.put(name, layer);
+		}
+		return layer;
+	}
+
+	/**
+	 * Returns the layer with the passed name if it has been
+	 * created via {@link #getLayer(String)}, or the first layer
+	 * with the name in the graph.
+	 *
+	 * @param name The name of the layer.
+	 * @return The layer with the name `name`, or `null` if there is none.
+	 */
+	public SLayer findLayer(String name) {
+		SLayer layer = layers.get(name);
+		if (layer == null) {
+			List<SLayer> graphLayers = graph.getLayerByName(name);
+			layer = graphLayers == null || graphLayers.isEmpty() ? null : graphLayers.get(0);
+		}
+		return layer;
+	}
+
+	/**
+	 * @return The interner for the document's annotation keys and values, or `null` if strings are not interned.
+	 */
+	public DocumentInterner getInterner() {
+		if (interner == null && pool != null) {
+			interner = pool.forDocument(graph.getDocument().getName());
+		}
+		return interner;
+	}
+
+	/**
+	 * @return The namer for the document's references without a name.
+	 */
+	public UnnamedRefNamer getUnnamedRefNamer() {
+		if (unnamedRefs == null) {
+			unnamedRefs = new UnnamedRefNamer(unnamedRefNaming, graph.getDocument().getName());
+		}
+		return unnamedRefs;
+	}
+
+	@SuppressWarnings("javadoc")
+	public SDocumentGraph getGraph() {
+		return graph;
+	}
+
+	@SuppressWarnings("javadoc")
+	public Interl11nDiagnostics getDiagnostics() {
+		return diagnostics;
+	}
+
+	@SuppressWarnings("javadoc")
+	public WarningAggregator getWarnings() {
+		return warnings;
+	}
+
+	@SuppressWarnings("javadoc")
+	public SpanIndex getSpans() {
+		return spans;
+	}
+
+}
@@ -19,9 +19,12 @@
  *******************************************************************************/
 package org.corpus_tools.peppermodules.toolbox.text.mapping;
 
-import java.util.regex.Pattern;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
 
 import org.corpus_tools.pepper.modules.PepperModuleProperties;
+import org.corpus_tools.peppermodules.toolbox.text.utils.DocumentNameNormalizer;
 import org.corpus_tools.peppermodules.toolbox.text.utils.ToolboxTextModulesUtils;
 import org.corpus_tools.salt.common.SDocument;
 import org.corpus_tools.salt.common.SDocumentGraph;
@@ -49,48 +52,51 @@ public class DocumentHeaderMapper extends AbstractBlockMapper {
 	}
 	
 	/**
-	 * For the prepared list of lines from the \id (= document)
+	 * For the prepared lines from the \id (= document)
 	 * header in the Toolbox file to be mapped, if the line
-	 * starts with the ID marker (default: \id), set its
-	 * following contents (after, e.g., "\id ") to the name
+	 * is marked with the ID marker (default: \id), set its
+	 * contents (after, e.g., "\id ") to the name
 	 * field of the {@link SDocument} being mapped to, and
 	 * for all other lines, create an {@link SMetaAnnotation}
-	 * on the document, using the result of a {@link String#split(String, int)}
-	 * operation (with the parameter 2, so that the splitting
-	 * occurs a maximal times of parameter - 1 times = once) by
-	 * setting the meta annotation's name to the first, and its
-	 * value to the second index in the split's resulting {@link String}
-	 * array.
+	 * on the document, setting the meta annotation's name to
+	 * the line's marker, and its value to the line's content.
+	 * 
+	 * The contents of lines with the same marker are joined
+	 * with spaces first, so that each meta annotation is
+	 * created only once.
 	 */
 	@Override
 	public boolean map() {
-		for (String line : lines) {
-			if (line.startsWith("\\" + properties.getIdMarker() + " ")) {
-				String name = line.split("\\s+", 2)[1].trim();
+		Map<String, StringBuilder> values = new LinkedHashMap<>();
+		for (int i = 0; i < markers.size(); i++) {
+			String marker = markers.get(i);
+			if (marker.equals(config.getIdMarker())) {
+				String name = contents.get(i).trim();
 				if (properties.normalizeDocNames()) {
-					String d1 = name.replaceAll(" ", "-");
-					String d2 = d1.replaceAll("\\.", "_");
-					String d3 = d2.replaceAll("\\n", "_");
-					String d4 = d3.replaceAll(":", "_");
-					String d5 = d4.replaceAll(",", "_");
-					String d6 = d5.replaceAll("-", "_");
-					String d7 = d6.replaceAll(Pattern.quote("("), "");
-					String d8 = d7.replaceAll(Pattern.quote(")"), "");
-					name = d8;
+					name = DocumentNameNormalizer.normalize(name);
 				}
 				graph.getDocument().setName(name);
 			}
 			else {
-				String[] markerContent = line.split("\\s+", 2);
-				String cleanedAnnotationString = ToolboxTextModulesUtils.trimAndCondense(markerContent[1]);
-				if (graph.getDocument().getMetaAnnotation(super.SALT_NAMESPACE_TOOLBOX + "::" + markerContent[0].substring(1)) != null) {
-					String oldVal = graph.getDocument().getMetaAnnotation(super.SALT_NAMESPACE_TOOLBOX + "::" + markerContent[0].substring(1)).getValue_STEXT();
-					String newVal = oldVal + " " + cleanedAnnotationString;
-					graph.getDocument().getMetaAnnotation(super.SALT_NAMESPACE_TOOLBOX + "::" + markerContent[0].substring(1)).setValue(newVal);
+				StringBuilder value = values.get(marker);
+				if (value == null) {
+					value = new StringBuilder();
+					values.put(marker, value);
 				}
 				else {
-					graph.getDocument().createMetaAnnotation(super.SALT_NAMESPACE_TOOLBOX, markerContent[0].substring(1), cleanedAnnotationString);
+					value.append(' ');
 				}
+				ToolboxTextModulesUtils.appendTrimmedAndCondensed(value, contents.get(i));
+			}
+		}
+		SDocument document = graph.getDocument();
+		for (Entry<String, StringBuilder> value : values.entrySet()) {
+			SMetaAnnotation existing = document.getMetaAnnotation(SALT_NAMESPACE_TOOLBOX + "::" + value.getKey());
+			if (existing != null) {
+				existing.setValue(existing.getValue_STEXT() + " " + value.getValue());
+			}
+			else {
+				document.createMetaAnnotation(SALT_NAMESPACE_TOOLBOX, value.getKey(), value.getValue().toString());
 			}
 		}
 		return true;
@@ -0,0 +1,290 @@
+/*******************************************************************************
+ * Copyright (c) 2016, 2018ff. Stephan Druskat
+ * Exploitation rights for this version belong exclusively to Humboldt-Universität zu Berlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Stephan Druskat (mail@sdruskat.net) - initial API and implementation
+ *******************************************************************************/
+package org.corpus_tools.peppermodules.toolbox.text.mapping;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.corpus_tools.peppermodules.toolbox.text.data.LayerData;
+import org.corpus_tools.peppermodules.toolbox.text.data.MorphLayerData;
+import org.corpus_tools.peppermodules.toolbox.text.diagnostics.Interl11nDiagnostics;
+import org.corpus_tools.peppermodules.toolbox.text.diagnostics.Interl11nEvent;
+import org.corpus_tools.peppermodules.toolbox.text.diagnostics.Interl11nEvent.Action;
+import org.corpus_tools.peppermodules.toolbox.text.properties.ToolboxTextImporterConfiguration;
+import org.corpus_tools.peppermodules.toolbox.text.properties.ToolboxTextImporterProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Fixes and documents interlinearization (interl11n) errors
+ * in the compiled layers of a reference, i.e., mismatches between
+ * the number of lexical and morphological units, and between the
+ * number of tokens and the number of annotations on them.
+ * 
+ * All repairs work in place on the tier columns of the
+ * {@link LayerData} objects: Excess items are truncated or
+ * concatenated, and missing items are padded with the missing
+ * annotation string, each in time linear in the number of
+ * affected items. As the columns of a reference share a buffer,
+ * error records only copy the offsets of the original items.
+ * 
+ * Each error is reported as an {@link Interl11nEvent} to the
+ * {@link Interl11nDiagnostics} of the import. Log messages are
+ * only rendered when debug logging is enabled.
+ *
+ * @author Stephan Druskat <[mail@sdruskat.net](mailto:mail@sdruskat.net)>
+ *
+ * @see ToolboxTextImporterProperties#PROP_FIX_INTERL11N
+ * @see ToolboxTextImporterProperties#PROP_RECORD_ERRORS
+ * @see ToolboxTextImporterProperties#PROP_INTERL11N_REPORT
+ */
+public class Interl11nFixer {
+	
+	private static final Logger log = LoggerFactory.getLogger(Interl11nFixer.class);
+	static final String ERROR_LAYER_NAME = "err";
+	static final String ERROR_TOO_MANY = "-p";
+	static final String ERROR_TOO_FEW = "-m";
+	
+	private final ToolboxTextImporterConfiguration config;
+	private final boolean fix;
+	private final boolean record;
+	private final Interl11nDiagnostics diagnostics;
+
+	/**
+	 * @param config The compiled configuration of the current import.
+	 * @param fix Whether errors should be fixed, cf. {@link ToolboxTextImporterProperties#fixInterl11n()}.
+	 * @param record Whether errors should be recorded on the reference, cf. {@link ToolboxTextImporterProperties#recordErrors()}.
+	 * @param diagnostics The sink to report errors to, or `null` if errors should only be logged.
+	 */
+	Interl11nFixer(ToolboxTextImporterConfiguration config, boolean fix, boolean record, Interl11nDiagnostics diagnostics) {
+		this.config = config;
+		this.fix = fix;
+		this.record = record;
+		this.diagnostics = diagnostics;
+	}
+
+	/**
+	 * Fixes/documents any interlinearization errors between a token
+	 * tier and its annotation tiers, e.g., missing or excess annotations.
+	 *
+	 * @param data The data object for which interl11n errors should be fixed.
+	 * @param refData The data object for the parent reference of `data`, which errors are recorded on.
+	 */
+	void fixTokenAnnotations(LayerData data, LayerData refData) {
+		Map<String, Integer> errors = record ? new HashMap<String, Integer>() : null;
+		int primaryN = data.size(LayerData.PRIMARY_TIER);
+		for (int tier = LayerData.PRIMARY_TIER + 1; tier < data.getTierCount(); tier++) {
+			String key = data.getTierName(tier);
+			int annosN = data.size(tier);
+			// If there are more annotations than tokens
+			if (annosN > primaryN) {
+				report(data, refData, key, data.getMarker(), primaryN, annosN, fix ? Action.TRUNCATED : Action.CONCATENATED);
+				recordError(errors, refData, key.concat(ERROR_TOO_MANY), data, tier);
+				if (fix) {
+					// Remove excess annotations
+					data.truncate(tier, primaryN);
+				}
+				else {
+					// Concatenate excess annotations to last non-excess
+					// annotation
+					data.join(tier, primaryN - 1, primaryN - 1, annosN, " ");
+					data.truncate(tier, primaryN);
+				}
+			}
+			// If there are less annotations than tokens
+			else if (annosN < primaryN) {
+				report(data, refData, key, data.getMarker(), primaryN, annosN, fix ? Action.PADDED : Action.NONE);
+				recordError(errors, refData, key.concat(ERROR_TOO_FEW), data, tier);
+				if (fix) {
+					// Replace missing annotations
+					data.pad(tier, primaryN, config.getMissingAnnoString());
+				}
+				// else do nothing
+			}
+		}
+		listErrors(errors, refData);
+	}
+
+	/**
+	 * Fixes/documents any interlinearization errors between the
+	 * lexical and morphological tokens, i.e., missing or excess
+	 * morphological tokens.
+	 * 
+	 * **Note:** As Toolbox data is generally governed by lexical
+	 * information, only the morphological data is changed in the
+	 * process. Annotation tiers on the morphological tokens are
+	 * only changed if they match the morphological tokens, all
+	 * other tiers are left for {@link #fixTokenAnnotations(LayerData, LayerData)}.
+	 * 
+	 * @param lexData The data object containing the lexical data.
+	 * @param morphData The data object containing the morphological data.
+	 * @param refData The data object for the parent reference of `lexData` and `morphData`, which errors are recorded on.
+	 * @return Whether the interlinearization was faulty, in which case
+	 * the morphological words must be re-compiled.
+	 */
+	boolean fixLexMorph(LayerData lexData, MorphLayerData morphData, LayerData refData) {
+		int sumLex = lexData.size(LayerData.PRIMARY_TIER);
+		int sumMorphWords = morphData.getMorphWordCount();
+		if (sumMorphWords == sumLex) {
+			return false;
+		}
+		Map<String, Integer> errors = record ? new HashMap<String, Integer>() : null;
+		int morphsN = morphData.size(LayerData.PRIMARY_TIER);
+		// If there are more "morph words" than lexical items
+		if (sumMorphWords > sumLex) {
+			report(morphData, refData, morphData.getMarker(), lexData.getMarker(), sumLex, sumMorphWords, fix ? Action.TRUNCATED : Action.CONCATENATED);
+			recordError(errors, refData, config.getMorphMarker().concat(ERROR_TOO_MANY), morphData, LayerData.PRIMARY_TIER);
+			int excessMorphemesSum = 0;
+			for (int i = sumLex; i < sumMorphWords; i++) {
+				excessMorphemesSum += morphData.getGroupSize(i);
+			}
+			int firstExcessMorphIndex = morphsN - excessMorphemesSum;
+			if (fix) {
+				// Remove excess data
+				morphData.truncate(LayerData.PRIMARY_TIER, firstExcessMorphIndex);
+				// Remove excess data in annotations if possible
+				for (int tier = LayerData.PRIMARY_TIER + 1; tier < morphData.getTierCount(); tier++) {
+					if (morphData.size(tier) == morphsN) {
+						String key = morphData.getTierName(tier);
+						report(morphData, refData, key, morphData.getMarker(), firstExcessMorphIndex, morphsN, Action.TRUNCATED);
+						recordError(errors, refData, key.concat(ERROR_TOO_MANY), morphData, tier);
+						morphData.truncate(tier, firstExcessMorphIndex);
+					}
+					// else leave checking / fixing for later stage
+				}
+			}
+			else {
+				// Concatenate excess data
+				morphData.join(LayerData.PRIMARY_TIER, firstExcessMorphIndex - 1, firstExcessMorphIndex - 1, morphsN, " ");
+				morphData.truncate(LayerData.PRIMARY_TIER, firstExcessMorphIndex);
+			}
+		}
+		// If there are fewer morphological units than lexical units
+		else {
+			report(morphData, refData, morphData.getMarker(), lexData.getMarker(), sumLex, sumMorphWords, fix ? Action.PADDED : Action.NONE);
+			recordError(errors, refData, config.getMorphMarker().concat(ERROR_TOO_FEW), morphData, LayerData.PRIMARY_TIER);
+			int paddedN = morphsN + sumLex - sumMorphWords;
+			String missingString = config.getMissingAnnoString();
+			if (fix) {
+				// Fill data
+				morphData.pad(LayerData.PRIMARY_TIER, paddedN, missingString);
+				// Fill data in annotations if possible
+				for (int tier = LayerData.PRIMARY_TIER + 1; tier < morphData.getTierCount(); tier++) {
+					if (morphData.size(tier) == morphsN) {
+						String key = morphData.getTierName(tier);
+						report(morphData, refData, key, morphData.getMarker(), paddedN, morphsN, Action.PADDED);
+						recordError(errors, refData, key.concat(ERROR_TOO_FEW), morphData, tier);
+						morphData.pad(tier, paddedN, missingString);
+					}
+					// else leave checking / fixing for later stage
+				}
+			}
+			// else do nothing
+		}
+		listErrors(errors, refData);
+		return true;
+	}
+
+	/**
+	 * Reports an interl11n error to the diagnostics sink, and
+	 * logs it on debug level.
+	 *
+	 * @param data The data object containing the faulty tier
+	 * @param refData The data object for the reference
+	 * @param tier The marker of the faulty tier
+	 * @param tokenTier The marker of the tier that `tier` is interlinearized with
+	 * @param expected The expected number of items on `tier`
+	 * @param actual The actual number of items on `tier`
+	 * @param action The action taken to fix the error
+	 */
+	private void report(LayerData data, LayerData refData, String tier, String tokenTier, int expected, int actual, Action action) {
+		if (diagnostics == null && !log.isDebugEnabled()) {
+			return;
+		}
+		Interl11nEvent event = new Interl11nEvent(data.getDocName(), refData.getRef(), tier, tokenTier, expected, actual, action);
+		if (diagnostics != null) {
+			diagnostics.report(event);
+		}
+		if (log.isDebugEnabled()) {
+			log.debug(event.render());
+		}
+	}
+
+	/**
+	 * Records the unchanged items of a faulty tier as an annotation
+	 * tier on the reference. This must be called before the tier is
+	 * changed. As with a map, a later error with the same key replaces
+	 * an earlier one.
+	 *
+	 * @param errors The map of error keys to the indices of the tiers recording them, or `null` if errors are not recorded
+	 * @param refData The data object for the reference
+	 * @param key The error key, i.e., the tier name plus {@link #ERROR_TOO_MANY} or {@link #ERROR_TOO_FEW}
+	 * @param data The data object containing the faulty tier
+	 * @param tier The index of the faulty tier
+	 */
+	private void recordError(Map<String, Integer> errors, LayerData refData, String key, LayerData data, int tier) {
+		if (errors == null) {
+			return;
+		}
+		Integer errorTier = errors.get(key);
+		if (errorTier == null) {
+			errors.put(key, refData.addTier(normalizeErrorKey(key), data, tier));
+		}
+		else {
+			refData.setTier(errorTier, data, tier);
+		}
+	}
+
+	/**
+	 * Lists the keys of all recorded errors in the error tier
+	 * {@link #ERROR_LAYER_NAME} of the reference.
+	 *
+	 * @param errors The map of error keys to the indices of the tiers recording them, or `null` if errors are not recorded
+	 * @param refData The data object for the reference
+	 */
+	private static void listErrors(Map<String, Integer> errors, LayerData refData) {
+		if (errors == null) {
+			return;
+		}
+		for (Entry<String, Integer> error : errors.entrySet()) {
+			refData.addToAnnotation(ERROR_LAYER_NAME, refData.getTierName(error.getValue()));
+		}
+	}
+
+	/**
+	 * Normalizes the marker part of a key if it is a primary
+	 * marker, or a primary marker plus an error suffix.
+	 *
+	 * @param key The key to normalize
+	 * @return The normalized key.
+	 */
+	String normalizeErrorKey(String key) {
+		String[] split = key.split("-");
+		if (config.isPrimaryMarker(key)) {
+			return config.normalize(key);
+		}
+		else if (split.length == 2 && config.isPrimaryMarker(split[0])) {
+			return config.normalize(split[0]).concat("-").concat(split[1]);
+		}
+		return key;
+	}
+
+}
@@ -0,0 +1,170 @@
+/*******************************************************************************
+ * Copyright (c) 2016, 2018ff. Stephan Druskat
+ * Exploitation rights for this version belong exclusively to Humboldt-Universität zu Berlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Stephan Druskat (mail@sdruskat.net) - initial API and implementation
+ *******************************************************************************/
+package org.corpus_tools.peppermodules.toolbox.text.mapping;
+
+import java.util.List;
+
+import org.corpus_tools.salt.common.SDocumentGraph;
+import org.corpus_tools.salt.common.STextualDS;
+import org.corpus_tools.salt.common.SToken;
+
+/**
+ * Accumulates the primary text of a single {@link STextualDS} for
+ * a whole document.
+ * 
+ * Instead of re-setting the text of the data source for every
+ * token (which copies the complete text each time), units are
+ * appended to a buffer, and the text is set on the data source
+ * exactly once via {@link #build()} after all references have been
+ * mapped.
+ * 
+ * The offsets handed out by {@link #append(CharSequence, int, int)} are identical
+ * to the offsets the respective unit has in the final text, so that
+ * tokens can be created before the text has been set.
+ * 
+ * The data source itself is only created in the graph when it is
+ * first needed, i.e., via {@link #ensureDataSource()} or when the first
+ * token is created, so that no empty data source is left behind for
+ * documents without the respective primary data. If the builder has
+ * a predecessor, the data source of the predecessor is created first,
+ * so that the data sources keep their order in the graph.
+ *
+ * @author Stephan Druskat <[mail@sdruskat.net](mailto:mail@sdruskat.net)>
+ *
+ */
+public class PrimaryTextBuilder {
+	
+	private final SDocumentGraph graph;
+	private final String name;
+	private final String separator;
+	private final StringBuilder text = new StringBuilder();
+	private final PrimaryTextBuilder predecessor;
+	private STextualDS dataSource = null;
+
+	/**
+	 * @param graph The {@link SDocumentGraph} to create the data source in.
+	 * @param name The name of the data source.
+	 * @param separator The {@link String} put between two units, or the empty {@link String} if units should be concatenated directly.
+	 */
+	PrimaryTextBuilder(SDocumentGraph graph, String name, String separator) {
+		this(graph, name, separator, null);
+	}
+
+	/**
+	 * @param graph The {@link SDocumentGraph} to create the data source in.
+	 * @param name The name of the data source.
+	 * @param separator The {@link String} put between two units, or the empty {@link String} if units should be concatenated directly.
+	 * @param predecessor The builder whose data source must precede this builder's data source in the graph, or `null`.
+	 */
+	PrimaryTextBuilder(SDocumentGraph graph, String name, String separator, PrimaryTextBuilder predecessor) {
+		this.graph = graph;
+		this.name = name;
+		this.separator = separator;
+		this.predecessor = predecessor;
+	}
+
+	/**
+	 * Appends a unit given as a region of a character sequence to the
+	 * text, preceded by the separator unless the text is still empty.
+	 *
+	 * @param source The character sequence containing the unit.
+	 * @param start The start offset of the unit in `source`, inclusive.
+	 * @param end The end offset of the unit in `source`, exclusive.
+	 * @return The start offset of the appended unit in the text.
+	 */
+	int append(CharSequence source, int start, int end) {
+		if (text.length() > 0) {
+			text.append(separator);
+		}
+		int textStart = text.length();
+		text.append(source, start, end);
+		return textStart;
+	}
+
+	/**
+	 * Creates tokens for a sequence of units in bulk: All units are
+	 * appended to the text first, and the tokens are then created on
+	 * the basis of the recorded offsets, in the order of the units.
+	 * 
+	 * The units are given as regions of a character sequence, so that
+	 * they need not be materialized as {@link String}s.
+	 *
+	 * @param source The character sequence containing the units.
+	 * @param unitStarts The start offsets of the units in `source`.
+	 * @param unitEnds The end offsets of the units in `source`.
+	 * @param size The number of units, i.e., the number of leading elements of the offset arrays to use.
+	 * @param tokens The list the created tokens are added to, in the order of the units.
+	 */
+	void createTokens(CharSequence source, int[] unitStarts, int[] unitEnds, int size, List<SToken> tokens) {
+		if (size == 0) {
+			return;
+		}
+		STextualDS dataSource = getDataSource();
+		ScratchContext scratch = ScratchContext.get();
+		int[] starts = scratch.getStarts(size);
+		int[] ends = scratch.getEnds(size);
+		for (int i = 0; i < size; i++) {
+			starts[i] = append(source, unitStarts[i], unitEnds[i]);
+			ends[i] = starts[i] + (unitEnds[i] - unitStarts[i]);
+		}
+		for (int i = 0; i < size; i++) {
+			tokens.add(graph.createToken(dataSource, starts[i], ends[i]));
+		}
+	}
+
+	/**
+	 * Sets the accumulated text on the data source.
+	 *
+	 * @return The data source with its complete text set, or `null` if the data source has never been created.
+	 */
+	STextualDS build() {
+		if (dataSource != null) {
+			dataSource.setText(text.toString());
+		}
+		return dataSource;
+	}
+
+	/**
+	 * Creates the data source in the graph if it doesn't exist
+	 * yet, after the data source of the predecessor, if any.
+	 */
+	void ensureDataSource() {
+		if (dataSource == null) {
+			if (predecessor != null) {
+				predecessor.ensureDataSource();
+			}
+			dataSource = graph.createTextualDS("");
+			dataSource.setName(name);
+		}
+	}
+
+	/**
+	 * Returns the data source, and creates it in the
+	 * graph if it doesn't exist yet.
+	 * 
+	 * @return the data source
+	 * @see #ensureDataSource()
+	 */
+	STextualDS getDataSource() {
+		ensureDataSource();
+		return dataSource;
+	}
+
+}
@@ -0,0 +1,230 @@
+/*******************************************************************************
+ * Copyright (c) 2016, 2018ff. Stephan Druskat
+ * Exploitation rights for this version belong exclusively to Humboldt-Universität zu Berlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Stephan Druskat (mail@sdruskat.net) - initial API and implementation
+ *******************************************************************************/
+package org.corpus_tools.peppermodules.toolbox.text.mapping;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.output.ByteArrayOutputStream;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+
+/**
+ * Per-thread scratch objects that the mappers reset and reuse
+ * between references, instead of allocating fresh buffers, lists
+ * and arrays for each of them.
+ * 
+ * Every getter resets or reuses the object it returns, so that an object is
+ * only valid until the next call to the same getter on the same
+ * thread. As the mappers for a single document run sequentially on
+ * one thread, this means that a scratch object must not be retained
+ * beyond the mapping of the reference it has been obtained for.
+ * 
+ * Buffers grow with the largest reference a thread has mapped. To keep
+ * worker threads from retaining them for their lifetime, {@link #trim()}
+ * drops buffers that have grown beyond a retained capacity once a document
+ * has been mapped.
+ *
+ * @author Stephan Druskat <[mail@sdruskat.net](mailto:mail@sdruskat.net)>
+ *
+ */
+final class ScratchContext {
+	
+	private static final int INITIAL_CAPACITY = 64;
+	private static final int INITIAL_BYTES = 8192;
+	private static final int INITIAL_CHARS = 1024;
+	
+	/**
+	 * The capacity up to which buffers are retained between documents,
+	 * in bytes, chars, or offsets respectively.
+	 */
+	static final int RETAINED_CAPACITY = 1 << 16;
+	
+	private static final ThreadLocal<ScratchContext> CONTEXT = new ThreadLocal<ScratchContext>() {
+		@Override
+		protected ScratchContext initialValue() {
+			return create();
+		}
+	};
+
+	private TrackingByteArrayOutputStream bytes = new TrackingByteArrayOutputStream();
+	private StringBuilder chars = new StringBuilder(INITIAL_CHARS);
+	private final List<String> markers = new ArrayList<>();
+	private final List<String> contents = new ArrayList<>();
+	private final ListMultimap<String, String> markerContentMap = ArrayListMultimap.create();
+	private int[] offsets = new int[INITIAL_CAPACITY];
+	private int[] starts = new int[INITIAL_CAPACITY];
+	private int[] ends = new int[INITIAL_CAPACITY];
+	
+	private ScratchContext() {
+		// Use get() or create()
+	}
+
+	/**
+	 * @return The scratch context for the current thread.
+	 */
+	static ScratchContext get() {
+		return CONTEXT.get();
+	}
+
+	/**
+	 * Creates a new scratch context. Apart from providing the
+	 * initial context of each thread, this allows tests to check
+	 * a context in isolation from the current thread's.
+	 * 
+	 * @return A new scratch context which is not shared with any thread.
+	 */
+	static ScratchContext create() {
+		return new ScratchContext();
+	}
+
+	/**
+	 * Drops the buffers of the current thread's scratch context
+	 * which have grown beyond {@link #RETAINED_CAPACITY}, so that
+	 * the thread doesn't retain the buffers for the largest reference
+	 * it has ever mapped. To be called once a document has been mapped.
+	 */
+	static void trim() {
+		CONTEXT.get().trimToRetainedCapacity();
+	}
+
+	/**
+	 * Replaces the buffers of this context which have grown beyond
+	 * {@link #RETAINED_CAPACITY} with buffers of their initial capacity.
+	 */
+	void trimToRetainedCapacity() {
+		if (Math.max(bytes.size(), bytes.maxSize) > RETAINED_CAPACITY) {
+			bytes = new TrackingByteArrayOutputStream();
+		}
+		if (chars.capacity() > RETAINED_CAPACITY) {
+			chars = new StringBuilder(INITIAL_CHARS);
+		}
+		if (offsets.length > RETAINED_CAPACITY) {
+			offsets = new int[INITIAL_CAPACITY];
+		}
+		if (starts.length > RETAINED_CAPACITY) {
+			starts = new int[INITIAL_CAPACITY];
+		}
+		if (ends.length > RETAINED_CAPACITY) {
+			ends = new int[INITIAL_CAPACITY];
+		}
+	}
+
+	/**
+	 * @return The empty byte buffer.
+	 */
+	ByteArrayOutputStream getByteBuffer() {
+		bytes.reset();
+		return bytes;
+	}
+
+	/**
+	 * @return The empty char buffer.
+	 */
+	StringBuilder getCharBuffer() {
+		chars.setLength(0);
+		return chars;
+	}
+
+	/**
+	 * @return The empty list of line markers.
+	 */
+	List<String> getMarkers() {
+		markers.clear();
+		return markers;
+	}
+
+	/**
+	 * @return The empty list of line contents.
+	 */
+	List<String> getContents() {
+		contents.clear();
+		return contents;
+	}
+
+	/**
+	 * @return The empty map of markers to line contents.
+	 */
+	ListMultimap<String, String> getMarkerContentMap() {
+		markerContentMap.clear();
+		return markerContentMap;
+	}
+
+	/**
+	 * @param size The minimum length of the array.
+	 * @return An array of at least `size` offsets, for use by the mappers
+	 * (the arrays returned by {@link #getStarts(int)} and {@link #getEnds(int)}
+	 * are used by {@link PrimaryTextBuilder}).
+	 */
+	int[] getOffsets(int size) {
+		if (offsets.length < size) {
+			offsets = new int[capacity(size)];
+		}
+		return offsets;
+	}
+
+	/**
+	 * @param size The minimum length of the array.
+	 * @return An array of at least `size` start offsets.
+	 */
+	int[] getStarts(int size) {
+		if (starts.length < size) {
+			starts = new int[capacity(size)];
+		}
+		return starts;
+	}
+
+	/**
+	 * @param size The minimum length of the array.
+	 * @return An array of at least `size` end offsets.
+	 */
+	int[] getEnds(int size) {
+		if (ends.length < size) {
+			ends = new int[capacity(size)];
+		}
+		return ends;
+	}
+
+	private static int capacity(int size) {
+		return Math.max(size, INITIAL_CAPACITY) * 2;
+	}
+
+	/**
+	 * A byte buffer which records the largest size it has had
+	 * before being reset, as its buffers are retained on reset.
+	 */
+	private static final class TrackingByteArrayOutputStream extends ByteArrayOutputStream {
+		
+		private int maxSize = 0;
+
+		private TrackingByteArrayOutputStream() {
+			super(INITIAL_BYTES);
+		}
+
+		@Override
+		public synchronized void reset() {
+			maxSize = Math.max(maxSize, size());
+			super.reset();
+		}
+
+	}
+
+}
@@ -0,0 +1,72 @@
+/*******************************************************************************
+ * Copyright (c) 2016, 2018ff. Stephan Druskat
+ * Exploitation rights for this version belong exclusively to Humboldt-Universität zu Berlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Stephan Druskat (mail@sdruskat.net) - initial API and implementation
+ *******************************************************************************/
+package org.corpus_tools.peppermodules.toolbox.text.mapping;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.corpus_tools.salt.common.SSpan;
+import org.corpus_tools.salt.common.SToken;
+
+/**
+ * A document-scoped index of the {@link SSpan}s in a document
+ * graph by the set of tokens they cover, so that an existing span
+ * over a set of tokens can be found with a single hash lookup
+ * instead of a scan over all spans in the graph.
+ * 
+ * For each set of tokens, the index holds the span over these
+ * tokens which has been added first. Spans must be added as they
+ * are created by the mappers.
+ *
+ * @author Stephan Druskat <[mail@sdruskat.net](mailto:mail@sdruskat.net)>
+ *
+ */
+public class SpanIndex {
+	
+	private final Map<Set<SToken>, SSpan> spans = new HashMap<>();
+
+	/**
+	 * Adds a span unless there already is a span over the same tokens.
+	 *
+	 * @param span The span to add, may be `null`.
+	 * @param tokens The tokens covered by `span`.
+	 */
+	public void add(SSpan span, Collection<SToken> tokens) {
+		if (span == null) {
+			return;
+		}
+		Set<SToken> key = new HashSet<>(tokens);
+		if (!spans.containsKey(key)) {
+			spans.put(key, span);
+		}
+	}
+
+	/**
+	 * @param tokens A set of tokens.
+	 * @return The first span that has been added over exactly the tokens in `tokens`, or `null` if there is none.
+	 */
+	public SSpan get(Set<SToken> tokens) {
+		return spans.get(tokens);
+	}
+
+}
@@ -0,0 +1,211 @@
+/*******************************************************************************
+ * Copyright (c) 2016, 2018ff. Stephan Druskat
+ * Exploitation rights for this version belong exclusively to Humboldt-Universität zu Berlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Stephan Druskat (mail@sdruskat.net) - initial API and implementation
+ *******************************************************************************/
+package org.corpus_tools.peppermodules.toolbox.text.mapping;
+
+import java.util.Arrays;
+
+import org.corpus_tools.peppermodules.toolbox.text.data.SubrefDefinition;
+import org.corpus_tools.peppermodules.toolbox.text.data.SubrefDefinition.SUBREF_TYPE;
+import org.corpus_tools.peppermodules.toolbox.text.utils.ToolboxTextModulesUtils;
+
+/**
+ * A parser for subreference definition lines, which splits a line
+ * into its fields, classifies it as one of the {@link SUBREF_TYPE}s
+ * and reads its token index ranges in a single pass over the line.
+ * 
+ * Fields are separated by runs of whitespace as matched by the
+ * regular expression `\s+`, so that lines are split exactly as by
+ * {@link String#split(String)}, without compiling or running a
+ * regular expression.
+ *
+ * @author Stephan Druskat <[mail@sdruskat.net](mailto:mail@sdruskat.net)>
+ *
+ */
+public class SubrefLineParser {
+
+	private final String lexMarker;
+	private final String morphMarker;
+
+	/**
+	 * @param lexMarker The marker for the lexical layer, which may be a subref target layer.
+	 * @param morphMarker The marker for the morphological layer, which may be a subref target layer.
+	 */
+	public SubrefLineParser(String lexMarker, String morphMarker) {
+		this.lexMarker = lexMarker;
+		this.morphMarker = morphMarker;
+	}
+
+	/**
+	 * Parses a subreference definition line.
+	 *
+	 * @param line The line to parse.
+	 * @return The {@link SubrefDefinition} defined in `line`, or `null` if the line does not match any subref type.
+	 * @throws NumberFormatException if a token index is too large to be represented as an `int`.
+	 */
+	public SubrefDefinition parse(String line) {
+		int[] fields = split(line);
+		int count = fields.length / 2;
+		switch (count) {
+		case 2:
+			if (areInts(line, fields, 0, 2)) {
+				return new SubrefDefinition(SUBREF_TYPE.UNIDENTIFIED_GLOBAL, readRanges(line, fields, 0), null, null);
+			}
+			break;
+
+		case 3:
+			if (areInts(line, fields, 1, 3)) {
+				String first = field(line, fields, 0);
+				if (first.equals(lexMarker) || first.equals(morphMarker)) {
+					return new SubrefDefinition(SUBREF_TYPE.UNIDENTIFIED_GLOBAL_TARGETED, readRanges(line, fields, 1), null, first);
+				}
+				return new SubrefDefinition(SUBREF_TYPE.IDENTIFIED_GLOBAL, readRanges(line, fields, 1), first, null);
+			}
+			break;
+
+		case 4:
+			if (areInts(line, fields, 2, 4)) {
+				return new SubrefDefinition(SUBREF_TYPE.IDENTIFIED_GLOBAL_TARGETED, readRanges(line, fields, 2), field(line, fields, 0), field(line, fields, 1));
+			}
+			break;
+
+		default:
+			if (count > 4 && count % 2 == 0 && areInts(line, fields, 2, count)) {
+				return new SubrefDefinition(SUBREF_TYPE.DISCONTINUOUS_TARGETED, readRanges(line, fields, 2), field(line, fields, 0), field(line, fields, 1));
+			}
+			break;
+		}
+		return null;
+	}
+
+	/**
+	 * Splits a line at runs of whitespace.
+	 * 
+	 * As with {@link String#split(String)}, a line starting with
+	 * whitespace has an empty first field, and trailing whitespace
+	 * is dropped.
+	 *
+	 * @param line The line to split.
+	 * @return The start and end offsets of the fields in `line`, in pairs.
+	 */
+	static int[] split(String line) {
+		int[] fields = new int[8];
+		int count = 0;
+		int length = line.length();
+		int i = 0;
+		while (true) {
+			int start = i;
+			while (i < length && !ToolboxTextModulesUtils.isWhitespace(line.charAt(i))) {
+				i++;
+			}
+			if (count == fields.length) {
+				fields = Arrays.copyOf(fields, count * 2);
+			}
+			fields[count++] = start;
+			fields[count++] = i;
+			while (i < length && ToolboxTextModulesUtils.isWhitespace(line.charAt(i))) {
+				i++;
+			}
+			if (i == length) {
+				break;
+			}
+		}
+		return count == fields.length ? fields : Arrays.copyOf(fields, count);
+	}
+
+	/**
+	 * Tests whether a region of a string is an optionally negative
+	 * sequence of digits.
+	 *
+	 * @param string The string to test.
+	 * @param start The start offset of the region.
+	 * @param end The end offset of the region.
+	 * @return Whether the region represents an integer.
+	 */
+	static boolean isInteger(String string, int start, int end) {
+		if (start < end && string.charAt(start) == '-') {
+			start++;
+		}
+		if (start == end) {
+			return false;
+		}
+		for (int i = start; i < end; i++) {
+			char c = string.charAt(i);
+			if (c < '0' || c > '9') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Parses a region of a string which has been tested with
+	 * {@link #isInteger(String, int, int)}.
+	 *
+	 * @param string The string to parse.
+	 * @param start The start offset of the region.
+	 * @param end The end offset of the region.
+	 * @return The `int` represented by the region.
+	 * @throws NumberFormatException if the value is outside of the range of `int`.
+	 */
+	static int parseInt(String string, int start, int end) {
+		boolean negative = string.charAt(start) == '-';
+		// Accumulate negatively to be able to represent Integer.MIN_VALUE
+		int limit = negative ? Integer.MIN_VALUE : -Integer.MAX_VALUE;
+		int result = 0;
+		for (int i = negative ? start + 1 : start; i < end; i++) {
+			int digit = string.charAt(i) - '0';
+			if (result < limit / 10 || result * 10 < limit + digit) {
+				throw new NumberFormatException("For input string: \"" + string.substring(start, end) + "\"");
+			}
+			result = result * 10 - digit;
+		}
+		return negative ? result : -result;
+	}
+
+	private static boolean areInts(String line, int[] fields, int from, int to) {
+		for (int i = from; i < to; i++) {
+			if (!isInteger(line, fields[2 * i], fields[2 * i + 1])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static String field(String line, int[] fields, int index) {
+		return line.substring(fields[2 * index], fields[2 * index + 1]);
+	}
+
+	/**
+	 * Reads all fields from `from` on as pairs of range bounds.
+	 *
+	 * @return The ranges as pairs of minimum and maximum.
+	 */
+	private static int[] readRanges(String line, int[] fields, int from) {
+		int[] ranges = new int[fields.length / 2 - from];
+		for (int i = 0; i < ranges.length; i += 2) {
+			int first = parseInt(line, fields[2 * (from + i)], fields[2 * (from + i) + 1]);
+			int second = parseInt(line, fields[2 * (from + i + 1)], fields[2 * (from + i + 1) + 1]);
+			ranges[i] = Math.min(first, second);
+			ranges[i + 1] = Math.max(first, second);
+		}
+		return ranges;
+	}
+
+}
@@ -20,17 +20,21 @@
 package org.corpus_tools.peppermodules.toolbox.text.mapping;
 
 import java.util.ArrayList; 
-import java.util.Arrays;
-import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import org.apache.commons.lang3.Range;
+import java.util.Set;
 import org.corpus_tools.peppermodules.toolbox.text.AbstractToolboxTextMapper;
 import org.corpus_tools.peppermodules.toolbox.text.data.LayerData;
 import org.corpus_tools.peppermodules.toolbox.text.data.SubrefDefinition;
 import org.corpus_tools.peppermodules.toolbox.text.data.SubrefDefinition.SUBREF_TYPE;
+import org.corpus_tools.peppermodules.toolbox.text.diagnostics.WarningAggregator;
+import org.corpus_tools.peppermodules.toolbox.text.diagnostics.WarningCategory;
+import org.corpus_tools.peppermodules.toolbox.text.properties.ToolboxTextImporterConfiguration;
 import org.corpus_tools.peppermodules.toolbox.text.properties.ToolboxTextImporterProperties;
+import org.corpus_tools.peppermodules.toolbox.text.utils.InterningPool.DocumentInterner;
 import org.corpus_tools.peppermodules.toolbox.text.utils.ToolboxTextModulesUtils;
 import org.corpus_tools.salt.common.SDocument;
 import org.corpus_tools.salt.common.SDocumentGraph;
@@ -41,9 +45,9 @@ import org.corpus_tools.salt.core.SLayer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Multimap;
+import com.google.common.collect.MultimapBuilder;
 
 /**
  * This class provides mapping functionality for *subreferences*, 
@@ -73,31 +77,42 @@ public class SubrefMapper extends AbstractToolboxTextMapper {
 	private final boolean refHasMorphology;
 
 	private final Map<String, String> markerMap;
+	private final DocumentContext context;
+	private final WarningAggregator warnings;
+	private final DocumentInterner interner;
+	private final SubrefLineParser parser;
+	private List<SToken> orderedLexTokens = null;
+	private List<SToken> orderedMorphTokens = null;
 	
 	
 	
 	/**
 	 * @param markerMap A map mapping markers to their target markers for normalization purposes.
 	 * @param properties The {@link ToolboxTextImporterProperties} instance for the current mapping.
-	 * @param graph The target {@link SDocument}'s {@link SDocumentGraph}.
+	 * @param context The context of the target {@link SDocument}, which holds its {@link SDocumentGraph}.
 	 * @param morphTokens A list of {@link SToken}s which represent morphological tokens.
 	 * @param lexTokens A list of {@link SToken}s which represent lexical tokens.
 	 * @param refData The data object of the currently mapped reference.
 	 * @param markerContentMap A {@link Multimap} mapping Toolbox markers to their respective line contents.
 	 * @param refHasMorphology Whether the currently mapped reference contains morphological tokens.
 	 */
-	public SubrefMapper(Map<String, String> markerMap, ToolboxTextImporterProperties properties, SDocumentGraph graph, LayerData refData, List<SToken> lexTokens, List<SToken> morphTokens, ListMultimap<String,String> markerContentMap, boolean refHasMorphology) {
-		this.graph = graph;
+	public SubrefMapper(Map<String, String> markerMap, ToolboxTextImporterProperties properties, DocumentContext context, LayerData refData, List<SToken> lexTokens, List<SToken> morphTokens, ListMultimap<String,String> markerContentMap, boolean refHasMorphology) {
+		this.context = context;
+		this.graph = context.getGraph();
 		this.refData = refData;
 		this.lexTokens = lexTokens;
 		this.morphTokens = morphTokens;
 		this.markerContentMap = markerContentMap;
-		this.lexMarker = properties.getLexMarker();
-		this.morphMarker = properties.getMorphMarker();
-		this.subRefDefinitionMarker = properties.getSubrefDefinitionMarker();
-		this.subRefAnnotationMarkers = properties.getSubRefAnnotationMarkers();
+		ToolboxTextImporterConfiguration config = properties.getConfiguration();
+		this.lexMarker = config.getLexMarker();
+		this.morphMarker = config.getMorphMarker();
+		this.subRefDefinitionMarker = config.getSubrefMarker();
+		this.subRefAnnotationMarkers = config.getSubrefAnnotationMarkers();
 		this.refHasMorphology = refHasMorphology;
+		this.parser = new SubrefLineParser(lexMarker, morphMarker);
 		this.markerMap = markerMap;
+		this.warnings = context.getWarnings();
+		this.interner = context.getInterner();
 	}
 
 	/**
@@ -120,9 +135,10 @@ public class SubrefMapper extends AbstractToolboxTextMapper {
 	 */
 	public void map() {
 		boolean mapGlobal = false;
-		Map<String, SubrefDefinition> subrefMap = new HashMap<>();
-		Multimap<SubrefDefinition, Entry<String, String>> subrefAnnoMap = ArrayListMultimap.create();
-		Multimap<String, String> simpleSubrefMap = ArrayListMultimap.create();
+		// Insertion-ordered, so that subrefs are mapped in the same order in every run
+		Map<String, SubrefDefinition> subrefMap = new LinkedHashMap<>();
+		Multimap<SubrefDefinition, Entry<String, String>> subrefAnnoMap = MultimapBuilder.linkedHashKeys().arrayListValues().build();
+		Multimap<String, String> simpleSubrefMap = MultimapBuilder.linkedHashKeys().arrayListValues().build();
 		/*
 		 * For each line marked with a subref definition marker, retrieve the subref type
 		 * and - if it has an identifier - put it in the subref map.
@@ -158,7 +174,7 @@ public class SubrefMapper extends AbstractToolboxTextMapper {
 		/* 
 		 * Collect all lines that are candidates for subref annotation.
 		 */
-		Multimap<String, String> subrefAnnoLines = ArrayListMultimap.create();
+		Multimap<String, String> subrefAnnoLines = MultimapBuilder.linkedHashKeys().arrayListValues().build();
 		for (String subrefAnnoMarker : subRefAnnotationMarkers) {
 			if (markerContentMap.get(subrefAnnoMarker) != null) {
 				if (!markerContentMap.get(subrefAnnoMarker).isEmpty()) {
@@ -180,8 +196,8 @@ public class SubrefMapper extends AbstractToolboxTextMapper {
 					String subrefAnnoLine = subrefAnnoLineEntry.getValue();
 
 					// Treat annotations targeting defined subrefs
-					String[] definitionSplit = subrefAnnoLine.split("\\s+", 2);
-					SubrefDefinition definition = subrefMap.get(definitionSplit[0]);
+					int space = subrefAnnoLine.indexOf(' ');
+					SubrefDefinition definition = subrefMap.get(space < 0 ? subrefAnnoLine : subrefAnnoLine.substring(0, space));
 					if (definition != null) {
 						subrefAnnoMap.put(definition, subrefAnnoLineEntry);
 						continue;
@@ -232,23 +248,25 @@ public class SubrefMapper extends AbstractToolboxTextMapper {
 			else if (targetLayer == null && refHasMorphology) {
 				mapToMorphTokens = true;
 			}
-			List<SToken> orderedTokens = graph.getSortedTokenByText(mapToMorphTokens ? morphTokens : lexTokens);
+			List<SToken> orderedTokens = getOrderedTokens(mapToMorphTokens);
 			String annoValue = null;
-			if (annoLine.split("\\s+").length > 1) {
-				annoValue = annoLine.split("\\s+", 2)[1].trim();
+			// Annotation lines have been condensed to single spaces
+			int space = annoLine.indexOf(' ');
+			if (space >= 0) {
+				annoValue = annoLine.substring(space + 1).trim();
 			}
 			else {
 				log.debug("There is no annotation value for subref '{}' with key '{}' in document '{}', ref '{}'. Ignoring this line.", definition.getIdentifier(), annoKey, refData.getDocName(), refData.getRef());
 				continue subrefannotationlines;
 			}
-			ranges:
-			for (Range<Integer> range : definition.getRanges()) {
-				if (orderedTokens.size() < range.getMaximum() + 1) {
-					log.warn("Subref {} in segment \'{}\' in document \"{}\" could not be resolved, as one or more subref token indices were outside of the range of token indices.\nNote that this may be due to earlier modification of the ref (excess tokens, etc.).\nTherefore please check previous warnings for this ref.\nIgnoring subref, please fix the source data.", range.getMinimum() + "-" + range.getMaximum(), refData.getRef(), refData.getDocName());
-					continue ranges;
+			for (int i = 0; i < definition.getRangeCount(); i++) {
+				int start = definition.getRangeStart(i);
+				int end = definition.getRangeEnd(i);
+				if (orderedTokens.size() < end + 1) {
+					warnings.warn(log, WarningCategory.UNRESOLVED_SUBREF, refData.getDocName(), "Subref {} in segment \'{}\' in document \"{}\" could not be resolved, as one or more subref token indices were outside of the range of token indices.\nNote that this may be due to earlier modification of the ref (excess tokens, etc.).\nTherefore please check previous warnings for this ref.\nIgnoring subref, please fix the source data.", start + "-" + end, refData.getRef(), refData.getDocName());
 				}
 				else {
-					subrefTokens.addAll(orderedTokens.subList(range.getMinimum(), range.getMaximum() + 1));	
+					subrefTokens.addAll(orderedTokens.subList(start, end + 1));	
 				}
 			}
 			if (subrefTokens.isEmpty()) {
@@ -259,9 +277,9 @@ public class SubrefMapper extends AbstractToolboxTextMapper {
 				log.warn("Duplicate annotation in '{}'-'{}'! There already exists an annotation with the key \"{}\". This might be an error in the source data. If it is not, please file a bug report.", refData.getDocName(), refData.getRef(), annoKey);
 			}
 			else {
-				subref.createAnnotation("toolbox", annoKey, annoValue);
+				subref.createAnnotation("toolbox", intern(annoKey), intern(annoValue));
 			}
-			SLayer layer = graph.getLayerByName(mapToMorphTokens ? getMarker(markerMap.get(morphMarker)) : getMarker(markerMap.get(lexMarker))).get(0);
+			SLayer layer = context.findLayer(mapToMorphTokens ? getMarker(markerMap.get(morphMarker)) : getMarker(markerMap.get(lexMarker)));
 			layer.addNode(subref);
 		}
 	}
@@ -280,48 +298,70 @@ public class SubrefMapper extends AbstractToolboxTextMapper {
 			List<SToken> subrefTokens = new ArrayList<>();
 			List<SToken> orderedTokens = null;
 			SLayer layer = null;
-			String[] typeSplit = anno.getValue().split("\\s+", 4);
+			/*
+			 * Annotation lines have been condensed to single spaces,
+			 * so the first three fields can be found by their offsets,
+			 * without splitting the line.
+			 */
+			String value = anno.getValue();
+			int length = value.length();
+			int first = value.indexOf(' ');
+			int second = first < 0 ? -1 : value.indexOf(' ', first + 1);
+			int third = second < 0 ? -1 : value.indexOf(' ', second + 1);
+			int firstEnd = first < 0 ? length : first;
+			int secondEnd = second < 0 ? length : second;
+			int thirdEnd = third < 0 ? length : third;
 			String annoValue = null;
 			boolean mapToMorphTokens = false;
 			boolean fullref = false;
-			Range<Integer> range = null;
+			// The range's bounds, with an exclusive maximum
+			int rangeFrom;
+			int rangeTo;
 			String name = subRefDefinitionMarker;
 
-			if ((typeSplit[0].equals(lexMarker) || typeSplit[0].equals(morphMarker)) && ToolboxTextModulesUtils.isInteger(typeSplit[1]) && ToolboxTextModulesUtils.isInteger(typeSplit[2])) {
+			if ((isField(value, firstEnd, lexMarker) || isField(value, firstEnd, morphMarker)) && second >= 0 && SubrefLineParser.isInteger(value, first + 1, secondEnd) && SubrefLineParser.isInteger(value, second + 1, thirdEnd)) {
 				// SUBREF_TYPE.SIMPLE_TARGETED
-				mapToMorphTokens = typeSplit[0].equals(morphMarker);
-				range = Range.between(Integer.parseInt(typeSplit[1]), Integer.parseInt(typeSplit[2]) + 1);
-				annoValue = typeSplit[3];
+				if (third < 0) {
+					log.debug("No value for annotation with key \"{}\" in document '{}', reference '{}'. Ignoring ...", anno.getKey(), refData.getDocName(), refData.getRef());
+					continue subrefannotationlines;
+				}
+				mapToMorphTokens = isField(value, firstEnd, morphMarker);
+				int from = SubrefLineParser.parseInt(value, first + 1, secondEnd);
+				int to = SubrefLineParser.parseInt(value, second + 1, thirdEnd) + 1;
+				rangeFrom = Math.min(from, to);
+				rangeTo = Math.max(from, to);
+				annoValue = value.substring(third + 1);
 			}
 			else {
-				if (ToolboxTextModulesUtils.isInteger(typeSplit[0]) && ToolboxTextModulesUtils.isInteger(typeSplit[1])) {
+				if (first >= 0 && SubrefLineParser.isInteger(value, 0, firstEnd) && SubrefLineParser.isInteger(value, first + 1, secondEnd)) {
 					// SUBREF_TYPE.SIMPLE
-					mapToMorphTokens = refHasMorphology;
-					range = Range.between(Integer.parseInt(typeSplit[0]), Integer.parseInt(typeSplit[1]) + 1);
-					String[] split = anno.getValue().split("\\s+", 3);
-					if (split.length < 3) {
+					if (second < 0) {
 						log.debug("No value for annotation with key \"{}\" in document '{}', reference '{}'. Ignoring ...", anno.getKey(), refData.getDocName(), refData.getRef());
 						continue subrefannotationlines;
 					}
-					else {
-						annoValue = split[2];
-					}
+					mapToMorphTokens = refHasMorphology;
+					int from = SubrefLineParser.parseInt(value, 0, firstEnd);
+					int to = SubrefLineParser.parseInt(value, first + 1, secondEnd) + 1;
+					rangeFrom = Math.min(from, to);
+					rangeTo = Math.max(from, to);
+					annoValue = value.substring(second + 1);
 				}
 				else {
 					// SUBREF_TYPE.FULL_REF_ANNOTATION
 					fullref = true;
-					range = Range.between(0, lexTokens.size());
-					annoValue = anno.getValue();
+					rangeFrom = 0;
+					rangeTo = lexTokens.size();
+					annoValue = value;
 					name = "fullref";
 				}
 			}
-			orderedTokens = graph.getSortedTokenByText(mapToMorphTokens ? morphTokens : lexTokens);
-			if (orderedTokens.size() < range.getMaximum()) {
-				log.warn("The maximum of subref range {}..{} in document '{}', reference '{}' is larger than the highest token index. Please fix source data! Ignoring this annotation ...", range.getMinimum(), range.getMaximum() - 1, refData.getDocName(), refData.getRef());
+			orderedTokens = getOrderedTokens(mapToMorphTokens);
+			if (orderedTokens.size() < rangeTo) {
+				warnings.warn(log, WarningCategory.SUBREF_RANGE_EXCEEDED, refData.getDocName(), "The maximum of subref range {}..{} in document '{}', reference '{}' is larger than the highest token index. Please fix source data! Ignoring this annotation ...", rangeFrom, rangeTo - 1, refData.getDocName(), refData.getRef());
 				continue subrefannotationlines;
 			}
 			else {
-				subrefTokens.addAll(orderedTokens.subList(range.getMinimum(), range.getMaximum()));
+				subrefTokens.addAll(orderedTokens.subList(rangeFrom, rangeTo));
 			}
 			if (subrefTokens.isEmpty()) {
 				continue subrefannotationlines;
@@ -352,13 +392,13 @@ public class SubrefMapper extends AbstractToolboxTextMapper {
 					skeletonAnno.setValue(newValue);
 				}
 				else {
-					subref.createAnnotation("toolbox", key, annoValue);
+					subref.createAnnotation("toolbox", intern(key), intern(annoValue));
 				}
 			}
 			else {
-				subref.createAnnotation("toolbox", key, annoValue);
+				subref.createAnnotation("toolbox", intern(key), intern(annoValue));
 			}
-			layer = graph.getLayerByName(mapToMorphTokens ? markerMap.get(morphMarker) : markerMap.get(lexMarker)).get(0);
+			layer = context.findLayer(mapToMorphTokens ? markerMap.get(morphMarker) : markerMap.get(lexMarker));
 			layer.addNode(subref);
 		}
 	}
@@ -377,7 +417,8 @@ public class SubrefMapper extends AbstractToolboxTextMapper {
 		List<SToken> orderedTokens = null;
 		SLayer layer = null;
 		// Global definitions only take a single range
-		Range<Integer> range = definition.getRanges().get(0);
+		int start = definition.getRangeStart(0);
+		int end = definition.getRangeEnd(0);
 		boolean mapToMorphTokens = false;
 		if (definition.getType() == SUBREF_TYPE.UNIDENTIFIED_GLOBAL) {
 			if (refHasMorphology) {
@@ -389,13 +430,13 @@ public class SubrefMapper extends AbstractToolboxTextMapper {
 				mapToMorphTokens = true;
 			}
 		}
-		orderedTokens = mapToMorphTokens ? graph.getSortedTokenByText(morphTokens) : graph.getSortedTokenByText(lexTokens);
-		if (orderedTokens.size() < range.getMaximum() + 1) {
-			log.warn("Document '{}', reference '{}': The indices defined in the global subdef are outside of the index range of the target tokens. Please fix the source data! Ignoring this subref ...", refData.getDocName(), refData.getRef());
+		orderedTokens = getOrderedTokens(mapToMorphTokens);
+		if (orderedTokens.size() < end + 1) {
+			warnings.warn(log, WarningCategory.SUBREF_RANGE_EXCEEDED, refData.getDocName(), "Document '{}', reference '{}': The indices defined in the global subdef are outside of the index range of the target tokens. Please fix the source data! Ignoring this subref ...", refData.getDocName(), refData.getRef());
 			return;
 		}
 		else {
-			subrefTokens.addAll(orderedTokens.subList(range.getMinimum(), range.getMaximum() + 1));
+			subrefTokens.addAll(orderedTokens.subList(start, end + 1));
 		}
 		subref = getSubrefSpan(subrefTokens);
 		for (Entry<String, String> anno : subrefAnnoLines.entries()) {
@@ -404,46 +445,80 @@ public class SubrefMapper extends AbstractToolboxTextMapper {
 				key = markerMap.get(key);
 			}
 			try {
-				subref.createAnnotation("toolbox", key, anno.getValue());
+				subref.createAnnotation("toolbox", intern(key), intern(anno.getValue()));
 			}
 			catch (Exception e) {
 				log.warn("Could not add annotation to subref with ranges {} in reference {} (document {}), as an annotation already exists! Ignoring this subref.", definition.getRanges(), refData.getRef(), refData.getDocName(), e);
 				return;
 			}
 		}
-		layer = graph.getLayerByName(mapToMorphTokens ? getMarker(markerMap.get(morphMarker)) : getMarker(markerMap.get(lexMarker))).get(0);
+		layer = context.findLayer(mapToMorphTokens ? getMarker(markerMap.get(morphMarker)) : getMarker(markerMap.get(lexMarker)));
 		layer.addNode(subref);
 	}
 
 	/**
-	 * Compares the list of subrefTokens with the list of sorted tokens
-	 * for each span to find out if a span spanning the same tokens
+	 * Returns the lexical or morphological tokens of the reference
+	 * sorted by text. Each list is sorted only once per reference,
+	 * which is cheap as {@link RefMapper} already creates the tokens
+	 * in text order.
+	 *
+	 * @param morph Whether to return the morphological tokens.
+	 * @return The sorted lexical or morphological tokens.
+	 */
+	private List<SToken> getOrderedTokens(boolean morph) {
+		if (morph) {
+			if (orderedMorphTokens == null) {
+				orderedMorphTokens = graph.getSortedTokenByText(morphTokens);
+			}
+			return orderedMorphTokens;
+		}
+		if (orderedLexTokens == null) {
+			orderedLexTokens = graph.getSortedTokenByText(lexTokens);
+		}
+		return orderedLexTokens;
+	}
+
+	/**
+	 * Looks up the span over the subref tokens in the document's
+	 * {@link SpanIndex} to find out if a span spanning the same tokens
 	 * already exists in the document graph.
 	 *
 	 * @return The span for the subref tokens, either the preexisting one or a newly created one.
 	 */
 	private SSpan getSubrefSpan(List<SToken> subrefTokens) {
-		SSpan subref = null;
-		forspans: for (SSpan span : graph.getSpans()) {
-			List<SToken> sortedSpanTokens = graph.getSortedTokenByText(graph.getOverlappedTokens(span));
-			if (sortedSpanTokens.size() == subrefTokens.size()) {
-				if (sortedSpanTokens.containsAll(subrefTokens)) {
-					subref = span;
-					String name = subref.getName();
-					if (name.isEmpty()) {
-						subref.setName(markerMap.get(subRefDefinitionMarker));
-					}
-					break forspans;
-				}
+		Set<SToken> tokenSet = new HashSet<>(subrefTokens);
+		SSpan subref = tokenSet.size() == subrefTokens.size() ? context.getSpans().get(tokenSet) : findSpanWithDuplicateTokens(subrefTokens);
+		if (subref != null) {
+			String name = subref.getName();
+			if (name.isEmpty()) {
+				subref.setName(markerMap.get(subRefDefinitionMarker));
 			}
 		}
-		if (subref == null) {
+		else {
 			subref = graph.createSpan(subrefTokens);
 			subref.setName(markerMap.get(subRefDefinitionMarker));
+			context.getSpans().add(subref, tokenSet);
 		}
 		return subref;
 	}
 
+	/**
+	 * Compares a list of subref tokens which contains duplicates with
+	 * the list of sorted tokens for each span, as such a list cannot
+	 * be looked up in the {@link SpanIndex}.
+	 *
+	 * @return The first span with as many tokens as `subrefTokens` which contains all of them, or `null`.
+	 */
+	private SSpan findSpanWithDuplicateTokens(List<SToken> subrefTokens) {
+		for (SSpan span : graph.getSpans()) {
+			List<SToken> sortedSpanTokens = graph.getSortedTokenByText(graph.getOverlappedTokens(span));
+			if (sortedSpanTokens.size() == subrefTokens.size() && sortedSpanTokens.containsAll(subrefTokens)) {
+				return span;
+			}
+		}
+		return null;
+	}
+
 	/**
 	 * Creates a {@link SubrefDefinition} object for a subreference line, i.e.,
 	 * a line that defines a subreference.
@@ -456,115 +531,58 @@ public class SubrefMapper extends AbstractToolboxTextMapper {
 	 * @return The compiled {@link SubrefDefinition} for the input.
 	 */
 	public SubrefDefinition createSubrefDefinitionFromSubrefLine(String subrefLine) {
-		final String[] split = subrefLine.split("\\s+");
-		SUBREF_TYPE type = determineSubrefType(split);
-		List<Range<Integer>> ranges = new ArrayList<>();
-		String identifier = null;
-		String targetLayer = null;
-		if (type != null) {
-			switch (type) {
-			case UNIDENTIFIED_GLOBAL:
-				ranges.add(Range.between(Integer.parseInt(split[0]), Integer.parseInt(split[1])));
-				break;
-
-			case UNIDENTIFIED_GLOBAL_TARGETED:
-				targetLayer = split[0];
-				ranges.add(Range.between(Integer.parseInt(split[1]), Integer.parseInt(split[2])));
-				break;
-
-			case IDENTIFIED_GLOBAL:
-				identifier = split[0];
-				ranges.add(Range.between(Integer.parseInt(split[1]), Integer.parseInt(split[2])));
-				break;
-
-			case IDENTIFIED_GLOBAL_TARGETED:
-				identifier = split[0];
-				targetLayer = split[1];
-				ranges.add(Range.between(Integer.parseInt(split[2]), Integer.parseInt(split[3])));
-				break;
-
-			case DISCONTINUOUS_TARGETED:
-				identifier = split[0];
-				targetLayer = split[1];
-				for (int i = 2; i < split.length; i++) {
-					ranges.add(Range.between(Integer.parseInt(split[i]), Integer.parseInt(split[++i])));
-				}
-				break;
-
-			default:
-				break;
-			}
-			return new SubrefDefinition(type, ranges, identifier, targetLayer);
-		}
-		return null;
+		return parser.parse(subrefLine);
 	}
 
 	/**
 	 * Determines the type of a subreference by processing the
 	 * structure of its defining line.
+	 * 
+	 * The line is classified by {@link SubrefLineParser#parse(String)}, 
+	 * which is also used to map subreference definition lines.
 	 *
 	 * @param split A {@link String} array representation of the subreference definition line split at whitespaces. 
 	 * @return The {@link SUBREF_TYPE} enum pertaining to the respective structure pattern of the input.
 	 */
 	public SUBREF_TYPE determineSubrefType(String[] split) {
-		switch (split.length) {
-		case 2:
-			if (areInts(split[0], split[1])) {
-				return SUBREF_TYPE.UNIDENTIFIED_GLOBAL;
-			}
-			break;
-
-		case 3:
-			if (areInts(split[1], split[2])) {
-				if (split[0].equals(lexMarker) || split[0].equals(morphMarker))
-					return SUBREF_TYPE.UNIDENTIFIED_GLOBAL_TARGETED;
-				else
-					return SUBREF_TYPE.IDENTIFIED_GLOBAL;
-			}
-			break;
-			
-		case 4: 
-			if (areInts(split[2], split[3])) {
-				return SUBREF_TYPE.IDENTIFIED_GLOBAL_TARGETED;
-			}
-			break;
-			
-		default:
-			if (split.length > 4 && Arrays.copyOfRange(split, 2, split.length).length % 2 == 0) {
-				for (int i = 2; i < split.length; i++) {
-					if (!areInts(split[i], split[++i])) {
-						return null;
-					}
-				}
-				return SUBREF_TYPE.DISCONTINUOUS_TARGETED;
-			}
-			break;
+		SubrefDefinition definition;
+		try {
+			definition = parser.parse(String.join(" ", split));
 		}
-		return null;
+		catch (NumberFormatException e) {
+			// Token indices which are too large to be represented as an int are no ints
+			return null;
+		}
+		return definition == null ? null : definition.getType();
 	}
 
 	/**
-	 * Util method to test whether two {@link String}s represent valid `int`s.
+	 * Tests whether the first field of a condensed line is a marker.
 	 *
-	 * @param string The first parameter to test.
-	 * @param string2 The second parameter to test.
-	 * @return Whether both input {@link String}s can be mapped to valid `int`s.
+	 * @param line The condensed line.
+	 * @param end The end offset of the first field.
+	 * @param marker The marker to test for.
+	 * @return Whether the first field of `line` equals `marker`.
 	 */
-	private boolean areInts(String string, String string2) {
-		return (ToolboxTextModulesUtils.isInteger(string) && ToolboxTextModulesUtils.isInteger(string2));
+	private static boolean isField(String line, int end, String marker) {
+		return marker != null && marker.length() == end && line.startsWith(marker);
 	}
 	
 	private String getMarker(String string) {
 		if (getProperties() != null) {
-			Map<String, String> markerMap = null;
-			if (!(markerMap = ((ToolboxTextImporterProperties) getProperties()).getMarkerMap()).isEmpty()) {
-				String idName = markerMap.get(string);
-				if (idName != null) {
-					return idName;
-				}
-			}
+			return ((ToolboxTextImporterProperties) getProperties()).getConfiguration().getMarker(string);
 		}
 		return string;
 	}
 
+	/**
+	 * Interns a string if an interner is set.
+	 *
+	 * @param value The string to intern
+	 * @return The pooled string equal to `value`, or `value` itself.
+	 */
+	private String intern(String value) {
+		return interner == null ? value : interner.intern(value);
+	}
+
 }
@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * Copyright (c) 2016, 2018ff. Stephan Druskat
+ * Exploitation rights for this version belong exclusively to Humboldt-Universität zu Berlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Stephan Druskat (mail@sdruskat.net) - initial API and implementation
+ *******************************************************************************/
+package org.corpus_tools.peppermodules.toolbox.text.mapping;
+
+import java.util.Arrays;
+
+import org.corpus_tools.salt.SaltFactory;
+import org.corpus_tools.salt.common.SDocumentGraph;
+import org.corpus_tools.salt.common.STimeline;
+import org.corpus_tools.salt.common.STimelineRelation;
+import org.corpus_tools.salt.common.SToken;
+
+/**
+ * Collects the assignments of tokens to time slots on the
+ * {@link STimeline} of a document, and materializes them in
+ * one sweep via {@link #build()}.
+ * 
+ * Assignments are kept in primitive arrays until the document
+ * has been mapped completely. The timeline is then extended
+ * once by the total number of points of time, and the
+ * {@link STimelineRelation}s are created in the order in which
+ * the assignments have been added.
+ *
+ * @author Stephan Druskat <[mail@sdruskat.net](mailto:mail@sdruskat.net)>
+ *
+ */
+public class TimelineBuilder {
+	
+	private static final int INITIAL_CAPACITY = 256;
+
+	private final SDocumentGraph graph;
+	private final STimeline timeline;
+	private SToken[] tokens = new SToken[INITIAL_CAPACITY];
+	private int[] starts = new int[INITIAL_CAPACITY];
+	private int[] ends = new int[INITIAL_CAPACITY];
+	private int size = 0;
+	private int end;
+	private int pointsOfTime = 0;
+
+	/**
+	 * @param graph The {@link SDocumentGraph} the timeline belongs to.
+	 * @param timeline The {@link STimeline} to linearize tokens on.
+	 */
+	TimelineBuilder(SDocumentGraph graph, STimeline timeline) {
+		this.graph = graph;
+		this.timeline = timeline;
+		this.end = timeline.getEnd() == null ? 0 : timeline.getEnd();
+	}
+
+	/**
+	 * Assigns a token to the time slots from `start` to `end`.
+	 *
+	 * @param token The token to assign.
+	 * @param start The first point of time the token covers.
+	 * @param end The point of time at which the token ends.
+	 */
+	void add(SToken token, int start, int end) {
+		if (size == tokens.length) {
+			int capacity = size * 2;
+			tokens = Arrays.copyOf(tokens, capacity);
+			starts = Arrays.copyOf(starts, capacity);
+			ends = Arrays.copyOf(ends, capacity);
+		}
+		tokens[size] = token;
+		starts[size] = start;
+		ends[size] = end;
+		size++;
+	}
+
+	/**
+	 * Extends the timeline by a number of points of time.
+	 * 
+	 * The extension is recorded only, and applied to the
+	 * timeline in {@link #build()}.
+	 *
+	 * @param steps The number of points of time to extend the timeline by.
+	 */
+	void extend(int steps) {
+		end += steps;
+		pointsOfTime += steps;
+	}
+
+	/**
+	 * @return The end of the timeline, including all extensions that
+	 * have not been applied yet.
+	 */
+	int getEnd() {
+		return end;
+	}
+
+	/**
+	 * Extends the timeline once by all recorded points of time, and
+	 * creates the {@link STimelineRelation}s for all recorded assignments.
+	 */
+	void build() {
+		if (pointsOfTime > 0) {
+			timeline.increasePointOfTime(pointsOfTime);
+		}
+		for (int i = 0; i < size; i++) {
+			STimelineRelation timeLineRel = SaltFactory.createSTimelineRelation();
+			timeLineRel.setSource(tokens[i]);
+			timeLineRel.setTarget(timeline);
+			timeLineRel.setStart(starts[i]);
+			timeLineRel.setEnd(ends[i]);
+			graph.addRelation(timeLineRel);
+			tokens[i] = null;
+		}
+		size = 0;
+		pointsOfTime = 0;
+	}
+
+}
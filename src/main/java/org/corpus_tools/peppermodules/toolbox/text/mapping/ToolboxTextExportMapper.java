@@ -19,9 +19,12 @@
  *******************************************************************************/
 package org.corpus_tools.peppermodules.toolbox.text.mapping;
 
+import java.io.BufferedWriter;
 import java.net.URI;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
-import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Comparator;
@@ -31,6 +34,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.Map.Entry;
+import java.util.concurrent.ThreadLocalRandom;
 
 import org.apache.commons.lang3.tuple.Triple;
 import org.corpus_tools.pepper.common.DOCUMENT_STATUS;
@@ -41,6 +45,7 @@ import org.corpus_tools.salt.SaltFactory;
 import org.corpus_tools.salt.common.SCorpusGraph;
 import org.corpus_tools.salt.common.SDocumentGraph;
 import org.corpus_tools.salt.common.SSpan;
+import org.corpus_tools.salt.common.SSpanningRelation;
 import org.corpus_tools.salt.common.STimeline;
 import org.corpus_tools.salt.common.STimelineRelation;
 import org.corpus_tools.salt.common.SToken;
@@ -55,8 +60,10 @@ import org.slf4j.LoggerFactory;
 
 import com.google.common.collect.Range;
 import static java.nio.charset.StandardCharsets.UTF_8;
-import static java.nio.file.StandardOpenOption.APPEND;
-import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.WRITE;
 import java.io.IOException;
 
 /**
@@ -71,6 +78,11 @@ public class ToolboxTextExportMapper extends AbstractToolboxTextMapper {
 	
 	private static final Logger logger = LoggerFactory.getLogger(ToolboxTextImportMapper.class);
 	
+	/**
+	 * The number of names to try for the temporary file a document is written to.
+	 */
+	private static final int MAX_TEMP_FILE_ATTEMPTS = 10;
+	
 	private ToolboxTextExporterProperties properties = null;
 	
 	/**
@@ -103,8 +115,83 @@ public class ToolboxTextExportMapper extends AbstractToolboxTextMapper {
 	private DOCUMENT_STATUS map() {
 		SDocumentGraph graph = getDocument().getDocumentGraph();
 		URI outputURI = URI.create(getResourceURI().toString());
-		final List<String> lines = new ArrayList<>();
+		Path outputPath = Paths.get(outputURI);
+		Path parent = outputPath.toAbsolutePath().getParent();
 
+		/*
+		 * Write the Toolbox text file to a temporary file next to the target
+		 * file while the document is being rendered, and move it into place
+		 * once it is complete. Thus, lines are not held in memory until the end,
+		 * and an existing file is only replaced by a completely written one.
+		 */
+		Path tempPath = null;
+		BufferedWriter tempWriter = null;
+		/*
+		 * Create the temporary file like any other new file, i.e., with the
+		 * default permissions, so that the file moved into place is as accessible
+		 * as a directly written one. Files.createTempFile would restrict it to the owner.
+		 */
+		for (int attempt = 1; tempWriter == null; attempt++) {
+			tempPath = parent.resolve(outputPath.getFileName().toString() + "." + Long.toHexString(ThreadLocalRandom.current().nextLong() >>> 1) + ".tmp");
+			try {
+				tempWriter = Files.newBufferedWriter(tempPath, UTF_8, CREATE_NEW, WRITE);
+			}
+			catch (FileAlreadyExistsException e) {
+				if (attempt == MAX_TEMP_FILE_ATTEMPTS) {
+					logger.error("Cannot create file {}!", outputURI.toString(), e);
+					return DOCUMENT_STATUS.FAILED;
+				}
+			}
+			catch (IOException e) {
+				logger.error("Cannot create file {}!", outputURI.toString(), e);
+				return DOCUMENT_STATUS.FAILED;
+			}
+		}
+		boolean written = false;
+		try {
+			try (BufferedWriter writer = tempWriter) {
+				write(graph, writer);
+			}
+			catch (IOException e) {
+				logger.error("Error writing to document file {}!", outputURI.toString(), e);
+				return DOCUMENT_STATUS.FAILED;
+			}
+			try {
+				try {
+					Files.move(tempPath, outputPath, ATOMIC_MOVE);
+				}
+				catch (AtomicMoveNotSupportedException e) {
+					Files.move(tempPath, outputPath, REPLACE_EXISTING);
+				}
+			}
+			catch (IOException e) {
+				logger.error("Error replacing document file {}!", outputURI.toString(), e);
+				return DOCUMENT_STATUS.FAILED;
+			}
+			written = true;
+			return DOCUMENT_STATUS.COMPLETED;
+		}
+		finally {
+			if (!written) {
+				try {
+					Files.deleteIfExists(tempPath);
+				}
+				catch (IOException e) {
+					logger.warn("Could not delete temporary file {}.", tempPath.toString(), e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Renders the document graph as Toolbox text, writing each
+	 * line to the passed writer as soon as it has been compiled.
+	 * 
+	 * @param graph The document graph to render
+	 * @param writer The writer to write the Toolbox text lines to
+	 * @throws IOException if a line cannot be written
+	 */
+	private void write(SDocumentGraph graph, BufferedWriter writer) throws IOException {
 		// Write Toolbox header line
 		/*
 		 * Explanation of Toolbox header line from https://groups.google.com/forum/#!topic/shoeboxtoolbox-field-linguists-toolbox/JunMJ4COtJA
@@ -122,17 +209,17 @@ public class ToolboxTextExportMapper extends AbstractToolboxTextMapper {
 		 * 
 		 * Toolbox database types (and other settings files) have an internal name distinct from the file name of the settings file. Toolbox was written when file names were restricted to an 8.3 format. We felt this was too limiting and created the concept of an internal name."
 		 */
-		lines.add("\\_sh v3.0 400 Text");
-		lines.add("");
+		writeLine(writer, "\\_sh v3.0 400 Text");
+		writeLine(writer, "");
 		
 		// Add document annotations and meta annotations
 		for (SAnnotation a : getDocument().getAnnotations()) {
-			lines.add(createMarkerAnnoString(a));
+			writeLine(writer, createMarkerAnnoString(a));
 		}
 		for (SMetaAnnotation ma : getDocument().getMetaAnnotations()) {
-			lines.add(createMarkerAnnoString(ma));
+			writeLine(writer, createMarkerAnnoString(ma));
 		}
-		lines.add("");
+		writeLine(writer, "");
 		
 		/*
 		 * Map all \ids
@@ -161,68 +248,65 @@ public class ToolboxTextExportMapper extends AbstractToolboxTextMapper {
 			dummySpan.setId("TOOLBOXTEXTEXPORTERDUMMYSPAN");
 			orderedIdSpans.add(dummySpan);
 		}
+		
+		/*
+		 *  We are currently working with only 1 data source!
+		 *  Spans should arguably only overlap one data source anyway, but some
+		 *  importers (notably the FLExImporter) will tie "phrase" spans (i.e., Toolbox refs)
+		 *  to both morphological and lexical tokens. Here it is assumed, that the spanned
+		 *  lexical tokens exactly overlap the spanned morphological tokens, and hence any
+		 *  DataSourceSequence of the two (or possibly more) will have the same effect
+		 *  on the Toolbox ref.
+		 */
+		Set<SSpan> refSpans = new HashSet<>();
+		List<SLayer> refSpanLayers = graph.getLayerByName(properties.getRefSpanLayer());
+		if (!refSpanLayers.isEmpty()) {
+			for (SNode node : refSpanLayers.get(0).getNodes()) {
+				if (node instanceof SSpan) {
+					refSpans.add((SSpan) node);
+				}
+			}
+		}
+		List<SSpan> orderedRefs = ToolboxTextModulesUtils.sortSpansByTextCoverageOfIncludedToken(refSpans);
+		Map<SSpan, List<SSpan>> refsPerId = assignRefsToIds(orderedIdSpans, orderedRefs);
+		Map<SSpan, List<SToken>> txTokensPerRef = assignTokensToRefs(graph, properties.getTxTokenLayer(), orderedRefs);
+		Map<SSpan, List<SToken>> mbTokensPerRef = assignTokensToRefs(graph, properties.getMbTokenLayer(), orderedRefs);
 		for (SSpan idSpan : orderedIdSpans) {
 			if (!idSpan.getId().equals("TOOLBOXTEXTEXPORTERDUMMYSPAN")) {
-				lines.add(getMappedName("id") + " " + idSpan.getAnnotation(properties.getIdIdentifierAnnotation()).getValue_STEXT());
+				writeLine(writer, getMappedName("id") + " " + idSpan.getAnnotation(properties.getIdIdentifierAnnotation()).getValue_STEXT());
 				for (SAnnotation a : idSpan.getAnnotations()) {
 					if (!a.getQName().equals(properties.getIdIdentifierAnnotation())) {
-						lines.add(createMarkerAnnoString(a));
+						writeLine(writer, createMarkerAnnoString(a));
 					}
 				}
 				for (SMetaAnnotation ma : idSpan.getMetaAnnotations()) {
 					if (!ma.getQName().equals(properties.getIdIdentifierAnnotation())) {
-						lines.add(createMarkerAnnoString(ma));
+						writeLine(writer, createMarkerAnnoString(ma));
 					}
 				}
 			}
 			else {
-				lines.add(getMappedName("id") + " " + graph.getDocument().getName());
+				writeLine(writer, getMappedName("id") + " " + graph.getDocument().getName());
 			}
 			
-			// Map \refs
-			// Get refs per id
-			/*
-			 *  We are currently working with only 1 data source!
-			 *  Spans should arguably only overlap one data source anyway, but some
-			 *  importers (notably the FLExImporter) will tie "phrase" spans (i.e., Toolbox refs)
-			 *  to both morphological and lexical tokens. Here it is assumed, that the spanned
-			 *  lexical tokens exactly overlap the spanned morphological tokens, and hence any
-			 *  DataSourceSequence of the two (or possibly more) will have the same effect
-			 *  on the Toolbox ref.
-			 */
-			List<SNode> allNodes = graph.getNodes();
-			Set<SSpan> refSpans = new HashSet<>();
-			for (SNode node : allNodes) {
-				if (node instanceof SSpan && node.getLayers().contains(graph.getLayerByName(properties.getRefSpanLayer()).get(0))) {
-					refSpans.add((SSpan) node);
-				}
-			}
-			List<SSpan> orderedRefs = ToolboxTextModulesUtils.sortSpansByTextCoverageOfIncludedToken(refSpans);
-			for (SSpan refSpan : orderedRefs) {
-				lines.add("");
-				lines.add(getMappedName("ref") + " " + refSpan.getAnnotation(properties.getRefIdentifierAnnotation()).getValue_STEXT());
+			// Map the \refs of this \id
+			for (SSpan refSpan : refsPerId.get(idSpan)) {
+				writeLine(writer, "");
+				writeLine(writer, getMappedName("ref") + " " + refSpan.getAnnotation(properties.getRefIdentifierAnnotation()).getValue_STEXT());
 				for (SAnnotation a : refSpan.getAnnotations()) {
 					if (!a.getQName().equals(properties.getRefIdentifierAnnotation())) {
-						lines.add(createMarkerAnnoString(a));
+						writeLine(writer, createMarkerAnnoString(a));
 					}
 				}
 				for (SMetaAnnotation ma : refSpan.getMetaAnnotations()) {
 					if (!ma.getQName().equals(properties.getRefIdentifierAnnotation())) {
-						lines.add(createMarkerAnnoString(ma));
+						writeLine(writer, createMarkerAnnoString(ma));
 					}
 				}
 				
 				// Map \tx
 				String txLine = getMappedName("tx");
-				List<SToken> txTokens = new ArrayList<>();
-				List<SToken> txCandidateTokens = graph.getOverlappedTokens(refSpan);
-				Set<SNode> txLayerNodes = graph.getLayerByName(properties.getTxTokenLayer()).get(0).getNodes();
-				for (SToken token : txCandidateTokens) {
-					if (txLayerNodes.contains(token)) {
-						txTokens.add(token);
-					}
-				}
-				List<SToken> orderedTxTokens = graph.getSortedTokenByText(txTokens);
+				List<SToken> orderedTxTokens = txTokensPerRef.get(refSpan);
 				// Build list of tx token annotations
 				Set<String> txTokenAnnotations = new HashSet<>();
 				// Build a list of ranges for all timeline ranges for tx tokens
@@ -294,25 +378,18 @@ public class ToolboxTextExportMapper extends AbstractToolboxTextMapper {
 
 					}
 				}
-				lines.add(txLine);
+				writeLine(writer, txLine);
 				
 				for (String al : txAnnotationLines.values()) {
-					lines.add(al);
+					writeLine(writer, al);
 				}
 				
 				
 				// Map \mb
 				String mbLine = getMappedName("mb");
-				List<SToken> mbTokens = new ArrayList<>();
-				List<SToken> mbCandidateTokens = graph.getOverlappedTokens(refSpan); // FIXME Make requirement clear that both token types must be covered by the refspan!
+				// FIXME Make requirement clear that both token types must be covered by the refspan!
 				// FIXME ALternatively, solve via timeline
-				Set<SNode> mbLayerNodes = graph.getLayerByName(properties.getMbTokenLayer()).get(0).getNodes();
-				for (SToken token : mbCandidateTokens) {
-					if (mbLayerNodes.contains(token)) {
-						mbTokens.add(token);
-					}
-				}
-				List<SToken> orderedMbTokens = graph.getSortedTokenByText(mbTokens);
+				List<SToken> orderedMbTokens = mbTokensPerRef.get(refSpan);
 				
 				// Build list of mb token annotations
 				Set<String> mbTokenAnnotations = new HashSet<>();
@@ -377,7 +454,7 @@ public class ToolboxTextExportMapper extends AbstractToolboxTextMapper {
 					 * For the last token, check if there are any other tx tokens
 					 * beyond its end index.
 					 */
-					if (orderedMbTokens.indexOf(mbToken) == orderedMbTokens.size() - 1) {
+					if (mbToken == orderedMbTokens.get(orderedMbTokens.size() - 1)) {
 						int currentEndIndex = timelineRel.getEnd();
 						int endIndexLastRange = ranges.get(ranges.size() - 1).upperEndpoint();
 						succeedingUncoveredRanges = checkForUncoveredness(ranges, currentEndIndex, endIndexLastRange);
@@ -440,42 +517,133 @@ public class ToolboxTextExportMapper extends AbstractToolboxTextMapper {
 
 					}
 				}
-				lines.add(mbLine);
+				writeLine(writer, mbLine);
 				
 				for (String al : mbAnnotationLines.values()) {
-					lines.add(al);
+					writeLine(writer, al);
 				}
 			}
 		}
-		
-		
-		// Write the Toolbox text files
-		// Remove the document file if it exists
-		try {
-			Files.delete(Paths.get(outputURI));
+	}
+
+	/**
+	 * Writes a single line to the Toolbox text file, followed by
+	 * the platform line separator.
+	 * 
+	 * @param writer The writer to write the line to
+	 * @param line The line to write
+	 * @throws IOException if the line cannot be written
+	 */
+	private static void writeLine(BufferedWriter writer, String line) throws IOException {
+		writer.write(line);
+		writer.newLine();
+	}
+
+	/**
+	 * Assigns each \ref span to the \id span which covers it, in
+	 * a single pass over the tokens of the \id spans and the \refs.
+	 * 
+	 * A \ref belongs to the \id which spans one of its tokens.
+	 * A \ref which doesn't share a token
+	 * with any \id is assigned to the \id of the preceding \ref, or
+	 * to the first \id, so that no \ref is lost.
+	 * 
+	 * @param orderedIdSpans The \id spans in text order
+	 * @param orderedRefs The \ref spans in text order
+	 * @return A map from each \id span to its \ref spans in text order
+	 */
+	private static Map<SSpan, List<SSpan>> assignRefsToIds(List<SSpan> orderedIdSpans, List<SSpan> orderedRefs) {
+		Map<SSpan, List<SSpan>> refsPerId = new HashMap<>();
+		Map<SNode, SSpan> idByToken = new HashMap<>();
+		for (SSpan idSpan : orderedIdSpans) {
+			refsPerId.put(idSpan, new ArrayList<SSpan>());
+			// The dummy span isn't part of the graph and has no relations
+			if (idSpan.getGraph() == null) {
+				continue;
+			}
+			for (SRelation<?, ?> rel : idSpan.getOutRelations()) {
+				if (rel instanceof SSpanningRelation && !idByToken.containsKey(rel.getTarget())) {
+					idByToken.put(((SSpanningRelation) rel).getTarget(), idSpan);
+				}
+			}
 		}
-		catch (NoSuchFileException e) {
-			// That's fine, just keep going.
-			try {
-				Files.createFile(Paths.get(outputURI));
+		SSpan currentId = orderedIdSpans.get(0);
+		for (SSpan refSpan : orderedRefs) {
+			for (SRelation<?, ?> rel : refSpan.getOutRelations()) {
+				if (rel instanceof SSpanningRelation) {
+					SSpan idSpan = idByToken.get(rel.getTarget());
+					if (idSpan != null) {
+						currentId = idSpan;
+						break;
+					}
+				}
 			}
-			catch (IOException e1) {
-				logger.error("Cannot create file {}!", outputURI.toString(), e);
-				return DOCUMENT_STATUS.FAILED;
+			refsPerId.get(currentId).add(refSpan);
+		}
+		return refsPerId;
+	}
+
+	/**
+	 * Assigns the tokens in the layer with the passed name to the
+	 * \ref spans which span them, in a single sweep over the tokens
+	 * of the layer in text order. Thus, each \ref receives its tokens
+	 * in text order, without sorting the tokens of each \ref again.
+	 * 
+	 * @param graph The document graph
+	 * @param layerName The name of the token layer, i.e., the \tx or \mb layer
+	 * @param orderedRefs The \ref spans in text order
+	 * @return A map from each \ref span to its tokens from the layer in text order
+	 */
+	private static Map<SSpan, List<SToken>> assignTokensToRefs(SDocumentGraph graph, String layerName, List<SSpan> orderedRefs) {
+		Map<SSpan, List<SToken>> tokensPerRef = new HashMap<>();
+		Map<SNode, SSpan> refByToken = new HashMap<>();
+		// Tokens spanned by more than one \ref
+		Map<SNode, List<SSpan>> furtherRefsByToken = new HashMap<>();
+		for (SSpan refSpan : orderedRefs) {
+			tokensPerRef.put(refSpan, new ArrayList<SToken>());
+			for (SRelation<?, ?> rel : refSpan.getOutRelations()) {
+				if (rel instanceof SSpanningRelation) {
+					SToken token = ((SSpanningRelation) rel).getTarget();
+					SSpan firstRef = refByToken.get(token);
+					if (firstRef == null) {
+						refByToken.put(token, refSpan);
+					}
+					else if (firstRef != refSpan) {
+						List<SSpan> furtherRefs = furtherRefsByToken.get(token);
+						if (furtherRefs == null) {
+							furtherRefs = new ArrayList<>();
+							furtherRefsByToken.put(token, furtherRefs);
+						}
+						if (!furtherRefs.contains(refSpan)) {
+							furtherRefs.add(refSpan);
+						}
+					}
+				}
 			}
 		}
-		catch (IOException e) {
-			logger.error("Error deleting existing document {}!", outputURI.toString(), e);
-			return DOCUMENT_STATUS.FAILED;
+		List<SLayer> layers = graph.getLayerByName(layerName);
+		if (refByToken.isEmpty() || layers == null || layers.isEmpty()) {
+			return tokensPerRef;
 		}
-		try {
-			Files.write(Paths.get(outputURI), lines, UTF_8, APPEND, CREATE);
-			return DOCUMENT_STATUS.COMPLETED;
+		List<SToken> layerTokens = new ArrayList<>();
+		for (SNode node : layers.get(0).getNodes()) {
+			if (node instanceof SToken) {
+				layerTokens.add((SToken) node);
+			}
 		}
-		catch (IOException e) {
-			logger.error("Error writing to document file {}!", outputURI.toString(), e);
-			return DOCUMENT_STATUS.FAILED;
+		for (SToken token : graph.getSortedTokenByText(layerTokens)) {
+			SSpan refSpan = refByToken.get(token);
+			if (refSpan != null) {
+				tokensPerRef.get(refSpan).add(token);
+				List<SSpan> furtherRefs = furtherRefsByToken.get(token);
+				if (furtherRefs != null) {
+					for (SSpan furtherRef : furtherRefs) {
+						tokensPerRef.get(furtherRef).add(token);
+					}
+				}
+			}
 		}
+		return tokensPerRef;
 	}
 
 	private String getMappedName(String name) {
@@ -25,7 +25,6 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.RandomAccessFile;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -33,12 +32,18 @@ import org.apache.commons.io.output.ByteArrayOutputStream;
 import org.corpus_tools.pepper.common.DOCUMENT_STATUS;
 import org.corpus_tools.pepper.modules.exceptions.PepperModuleException;
 import org.corpus_tools.peppermodules.toolbox.text.AbstractToolboxTextMapper;
+import org.corpus_tools.peppermodules.toolbox.text.diagnostics.Interl11nDiagnostics;
+import org.corpus_tools.peppermodules.toolbox.text.diagnostics.WarningAggregator;
+import org.corpus_tools.peppermodules.toolbox.text.diagnostics.WarningCategory;
+import org.corpus_tools.peppermodules.toolbox.text.properties.ToolboxTextImporterConfiguration;
 import org.corpus_tools.peppermodules.toolbox.text.properties.ToolboxTextImporterProperties;
+import org.corpus_tools.peppermodules.toolbox.text.utils.DocumentNameRegistry;
+import org.corpus_tools.peppermodules.toolbox.text.utils.InterningPool;
+import org.corpus_tools.peppermodules.toolbox.text.utils.InterningPool.DocumentInterner;
 import org.corpus_tools.salt.SaltFactory;
 import org.corpus_tools.salt.common.SDocument;
 import org.corpus_tools.salt.common.SDocumentGraph;
 import org.corpus_tools.salt.common.STextualDS;
-import org.corpus_tools.salt.core.SLayer;
 import org.corpus_tools.salt.core.SMetaAnnotation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -63,29 +68,34 @@ public class ToolboxTextImportMapper extends AbstractToolboxTextMapper {
 	private final Range<Long> idRange;
 	
 	private final boolean hasMorphology;
-	/**
-	 * A map mapping the defined marker to its target marker,
-	 * for normalization purposes.
-	 */
-	private final Map<String, String> markerMap = new HashMap<>(4);
-	private ToolboxTextImporterProperties properties = null;
 	
-	/**
-	 * Maps marker {@link String}s to {@link SLayer}s belonging to that marker.
-	 */
-	private Map<String, SLayer> layers = new HashMap<>();
+	private final Interl11nDiagnostics diagnostics;
+	
+	private final WarningAggregator warnings;
+	
+	private final InterningPool pool;
+	
+	private final DocumentNameRegistry documentNames;
 
 	/**
 	 * @param headerEndOffset
 	 * @param refMap
 	 * @param idRange
 	 * @param hasMorphology 
+	 * @param diagnostics The sink to report interlinearization errors to, or `null` if they should only be logged.
+	 * @param warnings The aggregator for frequent warnings, or `null` if all warnings should be logged.
+	 * @param pool The pool to intern annotation keys and values in, or `null` if strings should not be interned.
+	 * @param documentNames The registry to register the names of mapped documents in.
 	 */
-	public ToolboxTextImportMapper(Long headerEndOffset, Map<Long, List<Long>> refMap, Range<Long> idRange, boolean hasMorphology) {
+	public ToolboxTextImportMapper(Long headerEndOffset, Map<Long, List<Long>> refMap, Range<Long> idRange, boolean hasMorphology, Interl11nDiagnostics diagnostics, WarningAggregator warnings, InterningPool pool, DocumentNameRegistry documentNames) {
 		this.idRange = idRange;
 		this.refMap = refMap;
 		this.headerEndOffset = headerEndOffset;
 		this.hasMorphology = hasMorphology;
+		this.diagnostics = diagnostics;
+		this.warnings = warnings == null ? WarningAggregator.UNAGGREGATED : warnings;
+		this.pool = pool;
+		this.documentNames = documentNames;
 	}
 
 	/**
@@ -95,22 +105,8 @@ public class ToolboxTextImportMapper extends AbstractToolboxTextMapper {
 	 */
 	@Override
 	public DOCUMENT_STATUS mapSDocument() {
-		// Set up marker map
-		if (getProperties() instanceof ToolboxTextImporterProperties) {
-			this.properties = (ToolboxTextImporterProperties) getProperties();
-		}
-		if (properties.normalizeMarkers()) {
-			markerMap.put(properties.getRefMarker(), properties.getProperty(ToolboxTextImporterProperties.PROP_REF_MARKER).getDefaultValue().toString());
-			markerMap.put(properties.getSubrefDefinitionMarker(), properties.getProperty(ToolboxTextImporterProperties.PROP_SUB_REF_DEFINITION_MARKER).getDefaultValue().toString());
-			markerMap.put(properties.getLexMarker(), properties.getProperty(ToolboxTextImporterProperties.PROP_LEX_MARKER).getDefaultValue().toString());
-			markerMap.put(properties.getMorphMarker(), properties.getProperty(ToolboxTextImporterProperties.PROP_MORPH_MARKER).getDefaultValue().toString());
-		}
-		else {
-			markerMap.put(properties.getRefMarker(), properties.getRefMarker());
-			markerMap.put(properties.getSubrefDefinitionMarker(), properties.getSubrefDefinitionMarker());
-			markerMap.put(properties.getLexMarker(), properties.getLexMarker());
-			markerMap.put(properties.getMorphMarker(), properties.getMorphMarker());
-		}
+		// The compiled configuration shared by all mappers
+		final ToolboxTextImporterConfiguration config = getProperties().getConfiguration();
 
 		SDocumentGraph graph = getDocument().getDocumentGraph();
 		if (graph == null) {
@@ -118,25 +114,44 @@ public class ToolboxTextImportMapper extends AbstractToolboxTextMapper {
 			getDocument().setDocumentGraph(graph);
 		}
 		File file = new File(getResourceURI().toFileString());
+		// The state shared by the mappers of this document
+		final DocumentContext context = new DocumentContext(graph, getProperties().getUnnamedRefNaming(), diagnostics, warnings, pool);
+		
+		/*
+		 * A lean graph only contains the layers and primary data sources
+		 * which carry data, and only needs a timeline if the document
+		 * contains morphology. Hence, layers and data sources are only
+		 * created when the first node needs them.
+		 */
+		final boolean lean = getProperties().buildLeanGraph();
 		
 		// Create layers
-		getLayer(getMarker(markerMap.get(getProperties().getLexMarker())));
-		getLayer(getMarker(markerMap.get(getProperties().getMorphMarker())));
-		getLayer(getMarker(markerMap.get(getProperties().getRefMarker())));
+		if (!lean) {
+			context.getLayer(config.getLayerName(config.getLexMarker()));
+			context.getLayer(config.getLayerName(config.getMorphMarker()));
+			context.getLayer(config.getLayerName(config.getRefMarker()));
+		}
 		
 		// Create a timeline to linearize lexical and morphological tokens
-		graph.createTimeline();
+		final TimelineBuilder timeline = (!lean || hasMorphology) ? new TimelineBuilder(graph, graph.createTimeline()) : null;
 		
-		// Create primary data sources
-		final STextualDS lexDS = graph.createTextualDS("");
-		lexDS.setName(getMarker(markerMap.get(getProperties().getLexMarker())));
-		STextualDS morphDS = null;
-		if (hasMorphology) {
-			morphDS = graph.createTextualDS("");
-			morphDS.setName(getMarker(markerMap.get(getProperties().getMorphMarker())));
+		/*
+		 * Create primary data sources, the texts of which are built up over all refs.
+		 * The lexical data source always precedes the morphological one in the graph,
+		 * also when the data sources are only created with their first tokens.
+		 */
+		final PrimaryTextBuilder lexText = new PrimaryTextBuilder(graph, config.getLayerName(config.getLexMarker()), " ");
+		final PrimaryTextBuilder morphText = hasMorphology ? new PrimaryTextBuilder(graph, config.getLayerName(config.getMorphMarker()), "", lexText) : null;
+		if (!lean) {
+			lexText.ensureDataSource();
+			if (morphText != null) {
+				morphText.ensureDataSource();
+			}
 		}
  
-		try (RandomAccessFile raf = new RandomAccessFile(file, "r"); ByteArrayOutputStream bos = new ByteArrayOutputStream()) {
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+			// Reuse the byte buffer of the current thread
+			ByteArrayOutputStream bos = ScratchContext.get().getByteBuffer();
 			int currentByte;
 			// Whether this document is an orphan, i.e., contains no \refs
 			boolean isOrphan = false;
@@ -178,6 +193,8 @@ public class ToolboxTextImportMapper extends AbstractToolboxTextMapper {
 				documentHeaderMapper.map();
 				bos.reset();
 			}
+			// The name of the document may have been changed by the document header
+			documentNames.register(graph.getDocument());
 
 			// Parse refs if the document is not an orphan
 			if (!isOrphan) {
@@ -194,19 +211,33 @@ public class ToolboxTextImportMapper extends AbstractToolboxTextMapper {
 						bos.write(currentByte);
 					}
 					// Create and call a mapper for the \ref section
-					RefMapper refMapper = new RefMapper(markerMap, getProperties(), graph, bos.toString().trim(), hasMorphology, lexDS, morphDS, layers);
+					RefMapper refMapper = new RefMapper(getProperties(), context, bos.toString().trim(), hasMorphology, lexText, morphText, timeline, refOffset);
 					boolean refHasLexicalTokens = refMapper.map();
 					if (refHasLexicalTokens) {
-						SubrefMapper subrefMapper = new SubrefMapper(markerMap, getProperties(), graph, refMapper.getRefData(), refMapper.getLexTokens(), refMapper.getMorphTokens(), refMapper.getMarkerContentMap(), refMapper.refHasMorphology());
+						SubrefMapper subrefMapper = new SubrefMapper(config.getNormalizationMap(), getProperties(), context, refMapper.getRefData(), refMapper.getLexTokens(), refMapper.getMorphTokens(), refMapper.getMarkerContentMap(), refMapper.refHasMorphology());
 						subrefMapper.map();
 					}
 					bos.reset();
 				}
-				getLayer(getMarker(markerMap.get(getProperties().getLexMarker()))).addNode(lexDS);
+			}
+			// Set the texts of the primary data sources and the timeline once all refs have been mapped
+			STextualDS lexDS = lexText.build();
+			STextualDS morphDS = morphText != null ? morphText.build() : null;
+			if (timeline != null) {
+				timeline.build();
+			}
+			if (!isOrphan) {
+				if (lexDS != null) {
+					context.getLayer(config.getLayerName(config.getLexMarker())).addNode(lexDS);
+				}
 				if (morphDS != null) {
-					getLayer(getMarker(markerMap.get(getProperties().getMorphMarker()))).addNode(morphDS);
+					context.getLayer(config.getLayerName(config.getMorphMarker())).addNode(morphDS);
 				}
 			}
+			DocumentInterner interner = context.getInterner();
+			if (interner != null) {
+				logger.info("Document \"{}\": Interned {} annotation strings, saving approx. {} bytes.", interner.getDocument(), interner.getCount(), interner.getBytesSaved());
+			}
 		}
 		catch (FileNotFoundException e) {
 			throw new PepperModuleException("The corpus file " + getResourceURI().toFileString() + " has not been found.", e);
@@ -214,6 +245,10 @@ public class ToolboxTextImportMapper extends AbstractToolboxTextMapper {
 		catch (IOException e) {
 			throw new PepperModuleException("Error while parsing the corpus file " + getResourceURI().toFileString() + "!", e);
 		}
+		finally {
+			// Don't retain the buffers for the largest reference beyond this document
+			ScratchContext.trim();
+		}
 		return DOCUMENT_STATUS.COMPLETED;
 	}
 
@@ -270,7 +305,7 @@ public class ToolboxTextImportMapper extends AbstractToolboxTextMapper {
 							bos.reset();
 						}
 						else {
-							logger.warn("Found an orphan \\ref in the corpus header of \"" + file.getName() + "\" at byte " + stream.getCount() + ".\nWill neglect it and stop parsing the corpus header, and write the content that has already been parsed to the model.");
+							warnings.warn(logger, WarningCategory.ORPHAN_REF, file.getName(), "Found an orphan \\ref in the corpus header of \"{}\" at byte {}.\nWill neglect it and stop parsing the corpus header, and write the content that has already been parsed to the model.", file.getName(), stream.getCount());
 							// Break the whole try block
 							break headerParsing;
 						}
@@ -324,36 +359,6 @@ public class ToolboxTextImportMapper extends AbstractToolboxTextMapper {
 		return refMap.size() == 1 && refMap.containsKey(-1L);
 	}
 	
-	/**
-	 * Creates and names an {@link SLayer} and puts it to the {@link #layers}
-	 * {@link Map} under its name.
-	 * 
-	 * @param name
-	 * @return 
-	 */
-	private SLayer getLayer(String name) {
-		SLayer layer = null;
-		if ((layer = layers.get(name)) == null) {
-			layer = SaltFactory.createSLayer();
-			layer.setName(name);
-			getDocument().getDocumentGraph().addLayer(layer);
-			layers.put(name, layer);
-		}
-		return layer;
-	}
-
-	protected String getMarker(String string) {
-		Map<String, String> markerMap = null;
-		if (!(markerMap = ((ToolboxTextImporterProperties) getProperties()).getMarkerMap()).isEmpty()) {
-			String idName = markerMap.get(string);
-			if (idName != null) {
-				return idName;
-			}
-		}
-		return string;
-	}
-
-
 	/**
 	 * @return the properties
 	 */
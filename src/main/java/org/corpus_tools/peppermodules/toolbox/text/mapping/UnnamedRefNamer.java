@@ -0,0 +1,59 @@
+/*******************************************************************************
+ * Copyright (c) 2016, 2018ff. Stephan Druskat
+ * Exploitation rights for this version belong exclusively to Humboldt-Universität zu Berlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Stephan Druskat (mail@sdruskat.net) - initial API and implementation
+ *******************************************************************************/
+package org.corpus_tools.peppermodules.toolbox.text.mapping;
+
+import org.corpus_tools.peppermodules.toolbox.text.properties.UnnamedRefNaming;
+
+/**
+ * Names the references in a single document whose \ref line
+ * has no content, using an {@link UnnamedRefNaming} strategy.
+ * 
+ * A single namer is created per document by the {@link ToolboxTextImportMapper},
+ * so that names are unique within the document.
+ *
+ * @author Stephan Druskat <[mail@sdruskat.net](mailto:mail@sdruskat.net)>
+ *
+ */
+public class UnnamedRefNamer {
+	
+	private final UnnamedRefNaming naming;
+	private final String documentName;
+	private int count = 0;
+
+	/**
+	 * @param naming The naming strategy.
+	 * @param documentName The name of the document.
+	 */
+	UnnamedRefNamer(UnnamedRefNaming naming, String documentName) {
+		this.naming = naming;
+		this.documentName = documentName;
+	}
+
+	/**
+	 * Names the next unnamed reference in the document.
+	 *
+	 * @param offset The byte offset of the reference's \ref line in the corpus file.
+	 * @return The name for the reference.
+	 */
+	public String next(long offset) {
+		return naming.name(documentName, ++count, offset);
+	}
+
+}
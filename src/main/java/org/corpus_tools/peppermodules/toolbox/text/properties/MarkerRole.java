@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright (c) 2016, 2018ff. Stephan Druskat
+ * Exploitation rights for this version belong exclusively to Humboldt-Universität zu Berlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Stephan Druskat (mail@sdruskat.net) - initial API and implementation
+ *******************************************************************************/
+package org.corpus_tools.peppermodules.toolbox.text.properties;
+
+/**
+ * The roles that the lines in a Toolbox reference can play,
+ * as determined by their markers.
+ * 
+ * Every marker has exactly one role: Markers that are not
+ * defined as one of the other roles in the
+ * {@link ToolboxTextImporterProperties} are annotations
+ * on the reference ({@link #REF_ANNO}).
+ *
+ * @author Stephan Druskat <[mail@sdruskat.net](mailto:mail@sdruskat.net)>
+ *
+ */
+public enum MarkerRole {
+	
+	/**
+	 * The reference marker.
+	 */
+	REF(true),
+	/**
+	 * The marker for lexical items.
+	 */
+	LEX(true),
+	/**
+	 * The marker for morphological items.
+	 */
+	MORPH(true),
+	/**
+	 * The subref definition marker.
+	 */
+	SUBREF(true),
+	/**
+	 * A marker for annotations on lexical items.
+	 */
+	LEX_ANNO(false),
+	/**
+	 * A marker for annotations on morphological items.
+	 */
+	MORPH_ANNO(false),
+	/**
+	 * A marker for annotations on subrefs.
+	 */
+	SUBREF_ANNO(false),
+	/**
+	 * A marker for annotations on the reference.
+	 */
+	REF_ANNO(false);
+	
+	private final boolean primary;
+	
+	private MarkerRole(boolean primary) {
+		this.primary = primary;
+	}
+
+	/**
+	 * @return Whether this is the role of one of the ref, subref, lexical or morphological markers.
+	 */
+	public boolean isPrimary() {
+		return primary;
+	}
+
+}
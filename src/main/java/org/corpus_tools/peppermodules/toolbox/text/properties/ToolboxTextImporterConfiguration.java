@@ -0,0 +1,311 @@
+/*******************************************************************************
+ * Copyright (c) 2016, 2018ff. Stephan Druskat
+ * Exploitation rights for this version belong exclusively to Humboldt-Universität zu Berlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Stephan Druskat (mail@sdruskat.net) - initial API and implementation
+ *******************************************************************************/
+package org.corpus_tools.peppermodules.toolbox.text.properties;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.corpus_tools.peppermodules.toolbox.text.utils.ToolboxTextModulesUtils;
+
+/**
+ * An immutable, compiled view of a {@link ToolboxTextImporterProperties}
+ * instance.
+ * 
+ * The configuration is compiled once per import (see 
+ * {@link ToolboxTextImporterProperties#compileConfiguration()}), and
+ * shared by all mappers, so that property values that need parsing -
+ * marker lists, delimiter pairs, the marker map - are not re-derived
+ * per reference, token or annotation.
+ * 
+ * Next to the single markers and marker groups, the configuration holds
+ * 
+ * - the *normalization map*, mapping the defined ref, subref, lexical and
+ * morphological markers to their target markers (the defaults if
+ * {@link ToolboxTextImporterProperties#PROP_NORMALIZE_MARKERS} is `true`,
+ * themselves otherwise);
+ * - the *marker map* as defined in {@link ToolboxTextImporterProperties#MARKER_MAP};
+ * - the resulting lookup from the defined ref, lexical and morphological
+ * markers to the names of their {@link org.corpus_tools.salt.core.SLayer}s;
+ * - the classification of markers by their {@link MarkerRole}.
+ *
+ * @author Stephan Druskat <[mail@sdruskat.net](mailto:mail@sdruskat.net)>
+ *
+ */
+public final class ToolboxTextImporterConfiguration {
+	
+	private final String refMarker;
+	private final String lexMarker;
+	private final String morphMarker;
+	private final String subrefMarker;
+	private final String idMarker;
+	private final List<String> lexAnnotationMarkers;
+	private final List<String> morphAnnotationMarkers;
+	private final List<String> subrefAnnotationMarkers;
+	private final Set<String> subrefAnnotationMarkerSet;
+	private final Map<String, String> normalizationMap;
+	private final Map<String, String> markerMap;
+	private final Map<String, String> layerNames;
+	private final Map<String, MarkerRole> markerRoles;
+	private final String affixDelim;
+	private final String cliticDelim;
+	private final String liaisonDelim;
+	private final boolean attachDelimiter;
+	private final boolean attachDelimiterToNext;
+	private final String missingAnnoString;
+
+	/**
+	 * Compiles the configuration from the current values of
+	 * the passed properties.
+	 * 
+	 * @param properties The properties to compile.
+	 */
+	ToolboxTextImporterConfiguration(ToolboxTextImporterProperties properties) {
+		this.refMarker = properties.getRefMarker();
+		this.lexMarker = properties.getLexMarker();
+		this.morphMarker = properties.getMorphMarker();
+		this.subrefMarker = properties.getSubrefDefinitionMarker();
+		this.idMarker = properties.getIdMarker();
+		this.lexAnnotationMarkers = splitMarkers(properties.getLexAnnotationMarkers());
+		this.morphAnnotationMarkers = splitMarkers(properties.getMorphAnnotationMarkers());
+		this.subrefAnnotationMarkers = splitMarkers((String) properties.getProperty(ToolboxTextImporterProperties.PROP_SUB_REF_ANNOTATION_MARKERS).getValue());
+		this.subrefAnnotationMarkerSet = Collections.unmodifiableSet(new HashSet<>(subrefAnnotationMarkers));
+		
+		/*
+		 * The first role a marker is defined for wins, so that the single
+		 * markers take precedence over the marker groups.
+		 */
+		Map<String, MarkerRole> markerRoles = new HashMap<>();
+		putRole(markerRoles, refMarker, MarkerRole.REF);
+		putRole(markerRoles, lexMarker, MarkerRole.LEX);
+		putRole(markerRoles, morphMarker, MarkerRole.MORPH);
+		putRole(markerRoles, subrefMarker, MarkerRole.SUBREF);
+		for (String marker : lexAnnotationMarkers) {
+			putRole(markerRoles, marker, MarkerRole.LEX_ANNO);
+		}
+		for (String marker : morphAnnotationMarkers) {
+			putRole(markerRoles, marker, MarkerRole.MORPH_ANNO);
+		}
+		for (String marker : subrefAnnotationMarkers) {
+			putRole(markerRoles, marker, MarkerRole.SUBREF_ANNO);
+		}
+		this.markerRoles = Collections.unmodifiableMap(markerRoles);
+		
+		Map<String, String> normalizationMap = new HashMap<>(4);
+		if (properties.normalizeMarkers()) {
+			normalizationMap.put(refMarker, properties.getProperty(ToolboxTextImporterProperties.PROP_REF_MARKER).getDefaultValue().toString());
+			normalizationMap.put(subrefMarker, properties.getProperty(ToolboxTextImporterProperties.PROP_SUB_REF_DEFINITION_MARKER).getDefaultValue().toString());
+			normalizationMap.put(lexMarker, properties.getProperty(ToolboxTextImporterProperties.PROP_LEX_MARKER).getDefaultValue().toString());
+			normalizationMap.put(morphMarker, properties.getProperty(ToolboxTextImporterProperties.PROP_MORPH_MARKER).getDefaultValue().toString());
+		}
+		else {
+			normalizationMap.put(refMarker, refMarker);
+			normalizationMap.put(subrefMarker, subrefMarker);
+			normalizationMap.put(lexMarker, lexMarker);
+			normalizationMap.put(morphMarker, morphMarker);
+		}
+		this.normalizationMap = Collections.unmodifiableMap(normalizationMap);
+		this.markerMap = Collections.unmodifiableMap(properties.getMarkerMap());
+		
+		Map<String, String> layerNames = new HashMap<>(4);
+		for (String marker : new String[] { lexMarker, morphMarker, refMarker }) {
+			layerNames.put(marker, getMarker(normalizationMap.get(marker)));
+		}
+		this.layerNames = Collections.unmodifiableMap(layerNames);
+		
+		String[] morphemeDelimiters = properties.getProperty(ToolboxTextImporterProperties.PROP_MORPHEME_DELIMITERS).getValue().toString().trim().split(ToolboxTextModulesUtils.COMMA_DELIM_SPLIT_REGEX);
+		this.affixDelim = morphemeDelimiters[0];
+		this.cliticDelim = morphemeDelimiters[1];
+		this.liaisonDelim = properties.getLiaisonDelim();
+		this.attachDelimiter = properties.attachDelimiter();
+		this.attachDelimiterToNext = properties.attachDelimiterToNext();
+		this.missingAnnoString = properties.getMissingAnnoString();
+	}
+
+	private static void putRole(Map<String, MarkerRole> markerRoles, String marker, MarkerRole role) {
+		if (marker != null && !markerRoles.containsKey(marker)) {
+			markerRoles.put(marker, role);
+		}
+	}
+
+	/**
+	 * Splits a comma-separated list of markers.
+	 *
+	 * @param markers The list of markers, or `null`.
+	 * @return An unmodifiable list of the single markers, which is empty if `markers` is `null`.
+	 */
+	private static List<String> splitMarkers(String markers) {
+		if (markers == null) {
+			return Collections.emptyList();
+		}
+		return Collections.unmodifiableList(new ArrayList<>(Arrays.asList(markers.split(ToolboxTextModulesUtils.COMMA_DELIM_SPLIT_REGEX))));
+	}
+
+	/**
+	 * Looks up the name that a marker is mapped to in the 
+	 * marker map.
+	 *
+	 * @param marker The marker to look up.
+	 * @return The mapped name, or `marker` if it isn't mapped.
+	 */
+	public String getMarker(String marker) {
+		String name = markerMap.get(marker);
+		return name != null ? name : marker;
+	}
+
+	/**
+	 * Looks up the target marker of one of the ref, subref, lexical 
+	 * or morphological markers.
+	 *
+	 * @param marker The defined marker.
+	 * @return The target marker, or `null` if `marker` isn't one of the normalized markers.
+	 */
+	public String normalize(String marker) {
+		return normalizationMap.get(marker);
+	}
+
+	/**
+	 * Looks up the name of the layer for one of the ref, lexical 
+	 * or morphological markers, i.e., the normalized and then mapped
+	 * marker.
+	 *
+	 * @param marker The defined marker.
+	 * @return The layer name.
+	 */
+	public String getLayerName(String marker) {
+		String name = layerNames.get(marker);
+		return name != null ? name : getMarker(normalize(marker));
+	}
+	
+	/**
+	 * Classifies a marker.
+	 *
+	 * @param marker The marker to classify, without the preceding backslash.
+	 * @return The role of the marker, which is {@link MarkerRole#REF_ANNO} for all markers
+	 * that have not been defined as playing another role.
+	 */
+	public MarkerRole getRole(String marker) {
+		MarkerRole role = markerRoles.get(marker);
+		return role != null ? role : MarkerRole.REF_ANNO;
+	}
+
+	/**
+	 * @param key The marker to test.
+	 * @return Whether `key` is the ref, subref, lexical or morphological marker.
+	 */
+	public boolean isPrimaryMarker(String key) {
+		return getRole(key).isPrimary();
+	}
+
+	/**
+	 * @param marker The marker to test, without the preceding backslash.
+	 * @return Whether `marker` is the subref marker or one of the subref annotation markers, i.e.,
+	 * whether it may occur more than once in a block.
+	 */
+	public boolean isRepeatableMarker(String marker) {
+		return marker.equals(subrefMarker) || subrefAnnotationMarkerSet.contains(marker);
+	}
+
+	@SuppressWarnings("javadoc")
+	public String getRefMarker() {
+		return refMarker;
+	}
+
+	@SuppressWarnings("javadoc")
+	public String getLexMarker() {
+		return lexMarker;
+	}
+
+	@SuppressWarnings("javadoc")
+	public String getMorphMarker() {
+		return morphMarker;
+	}
+
+	@SuppressWarnings("javadoc")
+	public String getSubrefMarker() {
+		return subrefMarker;
+	}
+
+	@SuppressWarnings("javadoc")
+	public String getIdMarker() {
+		return idMarker;
+	}
+
+	@SuppressWarnings("javadoc")
+	public List<String> getLexAnnotationMarkers() {
+		return lexAnnotationMarkers;
+	}
+
+	@SuppressWarnings("javadoc")
+	public List<String> getMorphAnnotationMarkers() {
+		return morphAnnotationMarkers;
+	}
+
+	@SuppressWarnings("javadoc")
+	public List<String> getSubrefAnnotationMarkers() {
+		return subrefAnnotationMarkers;
+	}
+
+	@SuppressWarnings("javadoc")
+	public Map<String, String> getNormalizationMap() {
+		return normalizationMap;
+	}
+
+	@SuppressWarnings("javadoc")
+	public Map<String, String> getMarkerMap() {
+		return markerMap;
+	}
+
+	@SuppressWarnings("javadoc")
+	public String getAffixDelim() {
+		return affixDelim;
+	}
+
+	@SuppressWarnings("javadoc")
+	public String getCliticDelim() {
+		return cliticDelim;
+	}
+
+	@SuppressWarnings("javadoc")
+	public String getLiaisonDelim() {
+		return liaisonDelim;
+	}
+
+	@SuppressWarnings("javadoc")
+	public boolean attachDelimiter() {
+		return attachDelimiter;
+	}
+
+	@SuppressWarnings("javadoc")
+	public boolean attachDelimiterToNext() {
+		return attachDelimiterToNext;
+	}
+
+	@SuppressWarnings("javadoc")
+	public String getMissingAnnoString() {
+		return missingAnnoString;
+	}
+
+}
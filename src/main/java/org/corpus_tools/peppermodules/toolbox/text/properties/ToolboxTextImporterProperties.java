@@ -23,6 +23,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 import org.corpus_tools.pepper.modules.PepperModuleProperties;
@@ -239,6 +240,72 @@ public class ToolboxTextImporterProperties extends PepperModuleProperties {
 	 */
 	public static final String PROP_HAS_PDF_PAGE_ANNO = "hasPDFPageAnno";
 	
+	/**
+	 * Whether the importer should build a lean graph, i.e., create
+	 * the timeline only for documents that contain morphological
+	 * lines, and create layers and textual data sources only
+	 * once they contain nodes.
+	 * 
+	 * Default: *false*
+	 */
+	public static final String PROP_LEAN_GRAPH = "leanGraph";
+	
+	/**
+	 * The path of a file to write a report of all interlinearization
+	 * errors found during the import to, as tab-separated values.
+	 * 
+	 * Default: *none*, i.e., no report is written
+	 */
+	public static final String PROP_INTERL11N_REPORT = "interl11nReport";
+	
+	/**
+	 * The maximum number of interlinearization errors to keep
+	 * for the report in {@link #PROP_INTERL11N_REPORT}. All
+	 * further errors are only counted.
+	 * 
+	 * Default: *10000*
+	 */
+	public static final String PROP_INTERL11N_REPORT_LIMIT = "interl11nReportLimit";
+	
+	/**
+	 * The number of warnings to log in full per category of
+	 * frequent warnings, e.g., unresolved subrefs. All further
+	 * warnings of a category are only counted, and listed per
+	 * document in a summary at the end of the import.
+	 * 
+	 * Default: *10*
+	 */
+	public static final String PROP_WARNING_EXAMPLES = "warningExamples";
+	
+	/**
+	 * Whether the importer should intern annotation keys and values
+	 * in a pool shared by all documents, so that equal strings, e.g.,
+	 * glosses, are held in memory only once.
+	 * 
+	 * Default: *false*
+	 */
+	public static final String PROP_INTERN_STRINGS = "internStrings";
+	
+	/**
+	 * The maximum number of strings in the pool used when
+	 * {@link #PROP_INTERN_STRINGS} is `true`.
+	 * 
+	 * Default: *100000*
+	 */
+	public static final String PROP_INTERN_POOL_SIZE = "internPoolSize";
+	
+	/**
+	 * How references whose \ref line has no content are named,
+	 * either `ordinal` (document name and the number of the
+	 * unnamed reference within the document) or `offset` (document
+	 * name and the byte offset of the \ref line in the file).
+	 * 
+	 * Default: *ordinal*
+	 * 
+	 * @see UnnamedRefNaming
+	 */
+	public static final String PROP_UNNAMED_REF_NAMING = "unnamedRefNaming";
+	
 	/**
 	 * A map mapping annotation names to other annotation names.
 	 * 
@@ -251,6 +318,11 @@ public class ToolboxTextImporterProperties extends PepperModuleProperties {
 	 */
 	public static final String MARKER_MAP = "markerMap";
 	
+	/**
+	 * The compiled configuration, see {@link #compileConfiguration()}.
+	 */
+	private transient volatile ToolboxTextImporterConfiguration configuration = null;
+
 	/**
 	 * Constructor adding all properties to the instance.	 
 	 */
@@ -329,6 +401,27 @@ public class ToolboxTextImporterProperties extends PepperModuleProperties {
 		addProperty(PepperModuleProperty.create().withName(PROP_HAS_PDF_PAGE_ANNO).withType(Boolean.class)
 				.withDescription("Whether a corpus contains PDF page number annotations")
 				.withDefaultValue(false).isRequired(false).build());
+		addProperty(PepperModuleProperty.create().withName(PROP_LEAN_GRAPH).withType(Boolean.class)
+				.withDescription("Whether the importer should create the timeline only for documents with morphological lines, and drop empty layers and textual data sources.")
+				.withDefaultValue(false).isRequired(false).build());
+		addProperty(PepperModuleProperty.create().withName(PROP_INTERL11N_REPORT).withType(String.class)
+				.withDescription("The path of a file to write a report of all interlinearization errors to.")
+				.isRequired(false).build());
+		addProperty(PepperModuleProperty.create().withName(PROP_INTERL11N_REPORT_LIMIT).withType(Integer.class)
+				.withDescription("The maximum number of interlinearization errors to keep for the report.")
+				.withDefaultValue(10000).isRequired(false).build());
+		addProperty(PepperModuleProperty.create().withName(PROP_WARNING_EXAMPLES).withType(Integer.class)
+				.withDescription("The number of warnings to log in full per category of frequent warnings, e.g., unresolved subrefs.")
+				.withDefaultValue(10).isRequired(false).build());
+		addProperty(PepperModuleProperty.create().withName(PROP_INTERN_STRINGS).withType(Boolean.class)
+				.withDescription("Whether the importer should intern annotation keys and values in a pool shared by all documents.")
+				.withDefaultValue(false).isRequired(false).build());
+		addProperty(PepperModuleProperty.create().withName(PROP_INTERN_POOL_SIZE).withType(Integer.class)
+				.withDescription("The maximum number of strings in the interning pool.")
+				.withDefaultValue(100000).isRequired(false).build());
+		addProperty(PepperModuleProperty.create().withName(PROP_UNNAMED_REF_NAMING).withType(String.class)
+				.withDescription("How references without a name are named, either 'ordinal' (document name and number of the unnamed reference in the document) or 'offset' (document name and byte offset of the reference).")
+				.withDefaultValue("ordinal").isRequired(false).build());
 		addProperty(PepperModuleProperty.create().withName(MARKER_MAP).withType(String.class)
 				.withDescription("map mapping annotation names to other annotation names.")
 				.isRequired(false).build());
@@ -461,6 +554,79 @@ public class ToolboxTextImporterProperties extends PepperModuleProperties {
 		return (String) getProperty(PROP_PDF_PAGE_ANNO).getValue();
 	}
 
+	@SuppressWarnings("javadoc")
+	public boolean buildLeanGraph() {
+		return (Boolean) getProperty(PROP_LEAN_GRAPH).getValue();
+	}
+
+	@SuppressWarnings("javadoc")
+	public String getInterl11nReport() {
+		return (String) getProperty(PROP_INTERL11N_REPORT).getValue();
+	}
+
+	@SuppressWarnings("javadoc")
+	public int getInterl11nReportLimit() {
+		return (Integer) getProperty(PROP_INTERL11N_REPORT_LIMIT).getValue();
+	}
+
+	@SuppressWarnings("javadoc")
+	public int getWarningExamples() {
+		return (Integer) getProperty(PROP_WARNING_EXAMPLES).getValue();
+	}
+
+	@SuppressWarnings("javadoc")
+	public boolean internStrings() {
+		return (Boolean) getProperty(PROP_INTERN_STRINGS).getValue();
+	}
+
+	@SuppressWarnings("javadoc")
+	public int getInternPoolSize() {
+		return (Integer) getProperty(PROP_INTERN_POOL_SIZE).getValue();
+	}
+
+	@SuppressWarnings("javadoc")
+	public UnnamedRefNaming getUnnamedRefNaming() {
+		String value = (String) getProperty(PROP_UNNAMED_REF_NAMING).getValue();
+		try {
+			return UnnamedRefNaming.valueOf(value.trim().toUpperCase(Locale.ROOT));
+		}
+		catch (IllegalArgumentException e) {
+			throw new PepperModuleException("The property '" + PROP_UNNAMED_REF_NAMING + "' must be either 'ordinal' or 'offset', but is '" + value + "'. Please check its value and retry.");
+		}
+	}
+
+	/**
+	 * Compiles the current property values into an immutable
+	 * {@link ToolboxTextImporterConfiguration}, which is then
+	 * returned by {@link #getConfiguration()}.
+	 * 
+	 * Should be called once the property values have been set,
+	 * i.e., before the mapping starts.
+	 *
+	 * @return The compiled configuration.
+	 */
+	public ToolboxTextImporterConfiguration compileConfiguration() {
+		ToolboxTextImporterConfiguration configuration = new ToolboxTextImporterConfiguration(this);
+		this.configuration = configuration;
+		return configuration;
+	}
+
+	/**
+	 * @return The compiled configuration, which is compiled on first 
+	 * access if {@link #compileConfiguration()} hasn't been called yet.
+	 */
+	public ToolboxTextImporterConfiguration getConfiguration() {
+		ToolboxTextImporterConfiguration configuration = this.configuration;
+		if (configuration == null) {
+			synchronized (this) {
+				if ((configuration = this.configuration) == null) {
+					configuration = compileConfiguration();
+				}
+			}
+		}
+		return configuration;
+	}
+
 	public Map<String, String> getMarkerMap() {
 		Map<String, String> markerMap = new HashMap<>();
 		String property = (String) getProperty(MARKER_MAP).getValue();
@@ -0,0 +1,58 @@
+/*******************************************************************************
+ * Copyright (c) 2016, 2018ff. Stephan Druskat
+ * Exploitation rights for this version belong exclusively to Humboldt-Universität zu Berlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Stephan Druskat (mail@sdruskat.net) - initial API and implementation
+ *******************************************************************************/
+package org.corpus_tools.peppermodules.toolbox.text.properties;
+
+/**
+ * The strategies for naming references whose \ref line
+ * has no content.
+ * 
+ * Both strategies are deterministic, so that repeated imports
+ * of the same file produce the same names.
+ *
+ * @author Stephan Druskat <[mail@sdruskat.net](mailto:mail@sdruskat.net)>
+ *
+ */
+public enum UnnamedRefNaming {
+	
+	/**
+	 * Names a reference by the document name and the
+	 * reference's ordinal among the unnamed references
+	 * in the document, starting at 1.
+	 */
+	ORDINAL,
+	/**
+	 * Names a reference by the document name and the
+	 * byte offset of its \ref line in the corpus file.
+	 */
+	OFFSET;
+
+	/**
+	 * Creates the name for an unnamed reference.
+	 *
+	 * @param documentName The name of the document containing the reference.
+	 * @param ordinal The ordinal of the reference among the unnamed references in the document.
+	 * @param offset The byte offset of the reference's \ref line in the corpus file.
+	 * @return The name for the reference.
+	 */
+	public String name(String documentName, int ordinal, long offset) {
+		return "Unnamed \\ref (" + documentName + (this == ORDINAL ? " #" + ordinal : " @" + offset) + ")";
+	}
+
+}
@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright (c) 2016, 2018ff. Stephan Druskat
+ * Exploitation rights for this version belong exclusively to Humboldt-Universität zu Berlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Stephan Druskat (mail@sdruskat.net) - initial API and implementation
+ *******************************************************************************/
+package org.corpus_tools.peppermodules.toolbox.text.utils;
+
+import org.corpus_tools.salt.common.SDocument;
+
+/**
+ * Normalizes the names of {@link SDocument}s.
+ * 
+ * Normalization replaces spaces, full stops, line breaks, colons,
+ * commas and hyphens with underscores, and drops parentheses. It
+ * maps each character in a single pass over the name.
+ *
+ * @author Stephan Druskat <[mail@sdruskat.net](mailto:mail@sdruskat.net)>
+ *
+ */
+public class DocumentNameNormalizer {
+
+	/**
+	 * Normalizes a document name.
+	 *
+	 * @param name The document name to normalize.
+	 * @return The normalized name, or `name` itself if it contains no characters to normalize.
+	 */
+	public static String normalize(String name) {
+		StringBuilder normalized = null;
+		for (int i = 0; i < name.length(); i++) {
+			char c = name.charAt(i);
+			// -1 drops the character
+			int mapped;
+			switch (c) {
+			case ' ':
+			case '.':
+			case '\n':
+			case ':':
+			case ',':
+			case '-':
+				mapped = '_';
+				break;
+
+			case '(':
+			case ')':
+				mapped = -1;
+				break;
+
+			default:
+				mapped = c;
+				break;
+			}
+			if (mapped != c && normalized == null) {
+				normalized = new StringBuilder(name.length());
+				normalized.append(name, 0, i);
+			}
+			if (normalized != null && mapped >= 0) {
+				normalized.append((char) mapped);
+			}
+		}
+		return normalized == null ? name : normalized.toString();
+	}
+
+}
@@ -0,0 +1,101 @@
+/*******************************************************************************
+ * Copyright (c) 2016, 2018ff. Stephan Druskat
+ * Exploitation rights for this version belong exclusively to Humboldt-Universität zu Berlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Stephan Druskat (mail@sdruskat.net) - initial API and implementation
+ *******************************************************************************/
+package org.corpus_tools.peppermodules.toolbox.text.utils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.corpus_tools.salt.common.SCorpus;
+import org.corpus_tools.salt.common.SCorpusGraph;
+import org.corpus_tools.salt.common.SDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps track of the names of the {@link SDocument}s in each
+ * {@link SCorpus} of an import, and warns when a name is used
+ * by more than one document in the same corpus.
+ * 
+ * Documents are registered every time their name is set, i.e.,
+ * when they are created as well as when their header is mapped.
+ * A document which is registered again under a new name releases
+ * its previous name.
+ * 
+ * Instances are thread-safe, so that they can be shared by all
+ * mappers of an import.
+ *
+ * @author Stephan Druskat <[mail@sdruskat.net](mailto:mail@sdruskat.net)>
+ *
+ */
+public class DocumentNameRegistry {
+	
+	private static final Logger logger = LoggerFactory.getLogger(DocumentNameRegistry.class);
+	
+	/**
+	 * The ids of the documents by name, per corpus id.
+	 */
+	private final Map<String, Map<String, String>> documentsByName = new HashMap<>();
+	
+	/**
+	 * The registered name of each document by id.
+	 */
+	private final Map<String, String> namesByDocument = new HashMap<>();
+
+	/**
+	 * Registers the current name of a document for the corpus
+	 * containing it, and logs a warning if another document
+	 * in the same corpus already has the same name.
+	 *
+	 * @param document The document to register.
+	 * @return `true` if no other document in the same corpus has been registered with the same name, `false` if the name collides with another document's name.
+	 */
+	public synchronized boolean register(SDocument document) {
+		String documentId = document.getId();
+		String name = document.getName();
+		SCorpusGraph corpusGraph = document.getGraph();
+		SCorpus corpus = corpusGraph == null ? null : corpusGraph.getCorpus(document);
+		String corpusId = corpus == null ? null : corpus.getId();
+		Map<String, String> documents = documentsByName.get(corpusId);
+		if (documents == null) {
+			documents = new HashMap<>();
+			documentsByName.put(corpusId, documents);
+		}
+		// Release the name the document has been registered with before
+		String previous = namesByDocument.put(documentId, name);
+		if (previous != null && !previous.equals(name) && documentId.equals(documents.get(previous))) {
+			documents.remove(previous);
+		}
+		String owner = documents.get(name);
+		if (owner == null) {
+			documents.put(name, documentId);
+			return true;
+		}
+		if (owner.equals(documentId)) {
+			return true;
+		}
+		// The collision has already been reported when the document was registered with this name
+		if (name.equals(previous)) {
+			return false;
+		}
+		logger.warn("The document name \"{}\" is used more than once in the corpus \"{}\". The documents will have identical names!", name, corpus == null ? null : corpus.getName());
+		return false;
+	}
+
+}
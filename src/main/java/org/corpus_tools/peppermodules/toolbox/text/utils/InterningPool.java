@@ -0,0 +1,196 @@
+/*******************************************************************************
+ * Copyright (c) 2016, 2018ff. Stephan Druskat
+ * Exploitation rights for this version belong exclusively to Humboldt-Universität zu Berlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Stephan Druskat (mail@sdruskat.net) - initial API and implementation
+ *******************************************************************************/
+package org.corpus_tools.peppermodules.toolbox.text.utils;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.corpus_tools.peppermodules.toolbox.text.properties.ToolboxTextImporterProperties;
+
+/**
+ * A bounded, thread-safe pool of {@link String}s, which can be
+ * shared by all mappers of an import, so that equal annotation
+ * keys and values, e.g., glosses such as "3SG" or "PST", are
+ * held in memory only once.
+ * 
+ * Once the pool holds its maximum number of strings, no more
+ * strings are added, and strings not in the pool are returned
+ * as is. Strings longer than {@link #MAX_LENGTH} are never pooled,
+ * as free text rarely repeats.
+ * 
+ * Savings are counted per document by {@link DocumentInterner}s.
+ *
+ * @author Stephan Druskat <[mail@sdruskat.net](mailto:mail@sdruskat.net)>
+ *
+ * @see ToolboxTextImporterProperties#PROP_INTERN_STRINGS
+ */
+public class InterningPool {
+	
+	/**
+	 * The maximum length of pooled strings.
+	 */
+	public static final int MAX_LENGTH = 64;
+	
+	private final ConcurrentMap<String, String> pool;
+	private final int capacity;
+
+	/**
+	 * @param capacity The maximum number of strings in the pool.
+	 */
+	public InterningPool(int capacity) {
+		this.capacity = capacity;
+		this.pool = new ConcurrentHashMap<>(Math.min(capacity, 1024));
+	}
+
+	/**
+	 * Returns the pooled instance of a string, and adds the
+	 * string to the pool if it is not pooled yet and the pool
+	 * is not full.
+	 *
+	 * @param value The string to intern
+	 * @return The pooled string equal to `value`, or `value` itself.
+	 */
+	public String intern(String value) {
+		if (value == null || value.length() > MAX_LENGTH) {
+			return value;
+		}
+		String pooled = pool.get(value);
+		if (pooled != null) {
+			return pooled;
+		}
+		if (pool.size() >= capacity) {
+			return value;
+		}
+		pooled = pool.putIfAbsent(value, value);
+		return pooled == null ? value : pooled;
+	}
+
+	/**
+	 * @return The number of pooled strings.
+	 */
+	public int size() {
+		return pool.size();
+	}
+
+	/**
+	 * @param document The name of the document to intern strings for.
+	 * @return A new interner counting the savings for the document.
+	 */
+	public DocumentInterner forDocument(String document) {
+		return new DocumentInterner(this, document);
+	}
+
+	/**
+	 * Whether the running JVM stores strings which only contain
+	 * Latin-1 characters with one byte per character, which is
+	 * the default from Java 9 on.
+	 */
+	private static final boolean COMPACT_STRINGS = !System.getProperty("java.specification.version", "1.8").startsWith("1.");
+
+	/**
+	 * Estimates the number of bytes a string occupies on the heap,
+	 * i.e., the string object plus its character array, assuming
+	 * compressed references and 8-byte alignment.
+	 * 
+	 * From Java 9 on, strings which only contain Latin-1 characters
+	 * are estimated at one byte per character, assuming that compact
+	 * strings have not been disabled. All other strings are
+	 * estimated at two bytes per character.
+	 *
+	 * @param value The string to estimate the size of
+	 * @return The estimated size of `value` in bytes.
+	 */
+	static long estimateSize(String value) {
+		int bytesPerChar = COMPACT_STRINGS && isLatin1(value) ? 1 : 2;
+		return 24 + ((16 + (long) bytesPerChar * value.length() + 7) & ~7L);
+	}
+
+	/**
+	 * @param value The string to check
+	 * @return Whether all characters of `value` can be encoded in Latin-1.
+	 */
+	private static boolean isLatin1(String value) {
+		for (int i = 0; i < value.length(); i++) {
+			if (value.charAt(i) > 0xFF) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Interns strings for a single document in an {@link InterningPool},
+	 * and counts the strings which have been replaced by pooled
+	 * instances as well as the estimated number of bytes saved.
+	 * 
+	 * Instances are not thread-safe, and are meant to be used
+	 * by the mapper of a single document.
+	 *
+	 * @author Stephan Druskat <[mail@sdruskat.net](mailto:mail@sdruskat.net)>
+	 *
+	 */
+	public static class DocumentInterner {
+		
+		private final InterningPool pool;
+		private final String document;
+		private long count = 0;
+		private long bytesSaved = 0;
+
+		private DocumentInterner(InterningPool pool, String document) {
+			this.pool = pool;
+			this.document = document;
+		}
+
+		/**
+		 * @param value The string to intern
+		 * @return The pooled string equal to `value`, or `value` itself.
+		 * @see InterningPool#intern(String)
+		 */
+		public String intern(String value) {
+			String pooled = pool.intern(value);
+			if (pooled != value) {
+				count++;
+				bytesSaved += estimateSize(value);
+			}
+			return pooled;
+		}
+
+		@SuppressWarnings("javadoc")
+		public String getDocument() {
+			return document;
+		}
+
+		/**
+		 * @return The number of strings which have been replaced by pooled instances.
+		 */
+		public long getCount() {
+			return count;
+		}
+
+		/**
+		 * @return The estimated number of bytes saved by replacing strings with pooled instances.
+		 */
+		public long getBytesSaved() {
+			return bytesSaved;
+		}
+		
+	}
+
+}
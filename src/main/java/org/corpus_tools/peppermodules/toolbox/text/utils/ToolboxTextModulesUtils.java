@@ -88,8 +88,54 @@ public class ToolboxTextModulesUtils {
 	 * @return A {@link String} not affixed with spaces, and containing only single whitespaces and no line breaks.
 	 */
 	public static String trimAndCondense(String string) {
-		final String[] stringArr = string.trim().split("\\s+");
-		return String.join(" ", stringArr);
+		return appendTrimmedAndCondensed(new StringBuilder(string.length()), string).toString();
+	}
+
+	/**
+	 * Appends a {@link String} to a {@link StringBuilder}
+	 * in the form returned by {@link #trimAndCondense(String)},
+	 * without creating intermediate strings.
+	 * 
+	 * @param builder The {@link StringBuilder} to append to
+	 * @param string The {@link String} to trim and condense spaces on
+	 * @return `builder`
+	 */
+	public static StringBuilder appendTrimmedAndCondensed(StringBuilder builder, String string) {
+		int start = 0;
+		int end = string.length();
+		// Trim like String#trim()
+		while (start < end && string.charAt(start) <= ' ') {
+			start++;
+		}
+		while (end > start && string.charAt(end - 1) <= ' ') {
+			end--;
+		}
+		boolean space = false;
+		for (int i = start; i < end; i++) {
+			char c = string.charAt(i);
+			if (isWhitespace(c)) {
+				space = true;
+			}
+			else {
+				if (space) {
+					builder.append(' ');
+					space = false;
+				}
+				builder.append(c);
+			}
+		}
+		return builder;
+	}
+
+	/**
+	 * Tests whether a character is a whitespace character
+	 * as matched by the regular expression `\s`.
+	 * 
+	 * @param c The character to test
+	 * @return Whether `c` is a space, tab, line break, line tabulation, form feed or carriage return
+	 */
+	public static boolean isWhitespace(char c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
 	}
 	
 	/**
@@ -28,8 +28,12 @@ import java.util.HashMap;
 import org.apache.commons.lang3.Range;
 import org.corpus_tools.peppermodules.toolbox.text.data.SubrefDefinition;
 import org.corpus_tools.peppermodules.toolbox.text.data.SubrefDefinition.SUBREF_TYPE;
+import org.corpus_tools.peppermodules.toolbox.text.mapping.DocumentContext;
+import org.corpus_tools.peppermodules.toolbox.text.mapping.SubrefLineParser;
 import org.corpus_tools.peppermodules.toolbox.text.mapping.SubrefMapper;
 import org.corpus_tools.peppermodules.toolbox.text.properties.ToolboxTextImporterProperties;
+import org.corpus_tools.peppermodules.toolbox.text.properties.UnnamedRefNaming;
+import org.corpus_tools.salt.SaltFactory;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -51,7 +55,8 @@ public class SubrefMapperTest {
 	@Before
 	public void setUp() throws Exception {
 		ToolboxTextImporterProperties props = setProperties("importer/subref.properties");
-		SubrefMapper subrefMapper = new SubrefMapper(new HashMap<String, String>(), props, null, null, null, null, null, true);
+		DocumentContext context = new DocumentContext(SaltFactory.createSDocumentGraph(), UnnamedRefNaming.ORDINAL, null, null, null);
+		SubrefMapper subrefMapper = new SubrefMapper(new HashMap<String, String>(), props, context, null, null, null, null, true);
 		setFixture(subrefMapper);
 	}
 	
@@ -108,20 +113,47 @@ public class SubrefMapperTest {
 	}
 
 	/**
-	 * Test method for {@link org.corpus_tools.peppermodules.toolbox.text.mapping.SubrefMapper#determineSubrefType(java.lang.String[])}.
+	 * Test method for {@link org.corpus_tools.peppermodules.toolbox.text.mapping.SubrefMapper#createSubrefDefinitionFromSubrefLine(java.lang.String)}
+	 * with irregular whitespace and descending range bounds.
+	 */
+	@Test
+	public void testCreateSubrefFromIrregularSubrefLine() {
+		SubrefDefinition sd = getFixture().createSubrefDefinitionFromSubrefLine("def\tmb  7 3 \t 5  9 ");
+		assertThat(sd.getType(), is(SUBREF_TYPE.DISCONTINUOUS_TARGETED));
+		assertThat(sd.getIdentifier(), is("def"));
+		assertThat(sd.getTargetLayer(), is("mb"));
+		assertThat(sd.getRangeCount(), is(2));
+		assertThat(sd.getRangeStart(0), is(3));
+		assertThat(sd.getRangeEnd(0), is(7));
+		assertThat(sd.getRanges().get(1), is(Range.between(5, 9)));
+
+		// A leading whitespace is split off as an empty identifier
+		sd = getFixture().createSubrefDefinitionFromSubrefLine(" 1 2");
+		assertThat(sd.getType(), is(SUBREF_TYPE.IDENTIFIED_GLOBAL));
+		assertThat(sd.getIdentifier(), is(""));
+
+		assertNull(getFixture().createSubrefDefinitionFromSubrefLine(""));
+		assertNull(getFixture().createSubrefDefinitionFromSubrefLine("def mb -1 -"));
+	}
+
+	/**
+	 * Tests the classification of subref definition lines by
+	 * {@link SubrefLineParser#parse(String)}, which
+	 * {@link org.corpus_tools.peppermodules.toolbox.text.mapping.SubrefMapper#determineSubrefType(java.lang.String[])}
+	 * delegates to.
 	 */
 	@Test
 	public void testDetermineSubrefType() {
-		assertThat(getFixture().determineSubrefType(new String[]{"1", "4"}), is(SUBREF_TYPE.UNIDENTIFIED_GLOBAL));
-		assertNull(getFixture().determineSubrefType(new String[]{"1", "four"}));
-		assertThat(getFixture().determineSubrefType(new String[]{"tx", "1", "4"}), is(SUBREF_TYPE.UNIDENTIFIED_GLOBAL_TARGETED));
-		assertNull(getFixture().determineSubrefType(new String[]{"tx", "one", "4"}));
-		assertThat(getFixture().determineSubrefType(new String[]{"def", "1", "4"}), is(SUBREF_TYPE.IDENTIFIED_GLOBAL));
-		assertNull(getFixture().determineSubrefType(new String[]{"def", "1", "four"}));
-		assertThat(getFixture().determineSubrefType(new String[]{"def", "tx", "1", "4"}), is(SUBREF_TYPE.IDENTIFIED_GLOBAL_TARGETED));
-		assertNull(getFixture().determineSubrefType(new String[]{"def", "tx", "one", "4"}));
-		assertThat(getFixture().determineSubrefType(new String[]{"def", "tx", "1", "4", "7", "9"}), is(SUBREF_TYPE.DISCONTINUOUS_TARGETED));
-		assertNull(getFixture().determineSubrefType(new String[]{"def", "tx", "1", "4", "7", "9", "11"}));
+		assertThat(getSubrefType("1 4"), is(SUBREF_TYPE.UNIDENTIFIED_GLOBAL));
+		assertNull(getSubrefType("1 four"));
+		assertThat(getSubrefType("tx 1 4"), is(SUBREF_TYPE.UNIDENTIFIED_GLOBAL_TARGETED));
+		assertNull(getSubrefType("tx one 4"));
+		assertThat(getSubrefType("def 1 4"), is(SUBREF_TYPE.IDENTIFIED_GLOBAL));
+		assertNull(getSubrefType("def 1 four"));
+		assertThat(getSubrefType("def tx 1 4"), is(SUBREF_TYPE.IDENTIFIED_GLOBAL_TARGETED));
+		assertNull(getSubrefType("def tx one 4"));
+		assertThat(getSubrefType("def tx 1 4 7 9"), is(SUBREF_TYPE.DISCONTINUOUS_TARGETED));
+		assertNull(getSubrefType("def tx 1 4 7 9 11"));
 	}
 
 	/**
@@ -129,7 +161,17 @@ public class SubrefMapperTest {
 	 */
 	@Test
 	public void testDetermineSubrefTypeFail() {
-		getFixture().determineSubrefType(new String[]{"def", "tx", "1", "4", "7", "9", "11"});
+		assertNull(getFixture().determineSubrefType(new String[]{"def", "tx", "1", "4", "7", "9", "11"}));
+		assertThat(getFixture().determineSubrefType(new String[]{"def", "tx", "1", "4", "7", "9"}), is(SUBREF_TYPE.DISCONTINUOUS_TARGETED));
+	}
+
+	/**
+	 * @param line A subref definition line.
+	 * @return The type of the subref defined in `line` as classified by the {@link SubrefLineParser}, or `null`.
+	 */
+	private static SUBREF_TYPE getSubrefType(String line) {
+		SubrefDefinition definition = new SubrefLineParser("tx", "mb").parse(line);
+		return definition == null ? null : definition.getType();
 	}
 
 	/**
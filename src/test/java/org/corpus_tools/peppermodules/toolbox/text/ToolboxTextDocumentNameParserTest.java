@@ -24,6 +24,12 @@ import static org.hamcrest.MatcherAssert.assertThat;
 
 import java.io.File;
 import org.corpus_tools.pepper.modules.exceptions.PepperModuleException;
+import org.corpus_tools.peppermodules.toolbox.text.utils.DocumentNameNormalizer;
+import org.corpus_tools.peppermodules.toolbox.text.utils.DocumentNameRegistry;
+import org.corpus_tools.salt.SaltFactory;
+import org.corpus_tools.salt.common.SCorpus;
+import org.corpus_tools.salt.common.SCorpusGraph;
+import org.corpus_tools.salt.common.SDocument;
 import org.junit.Test;
 
 public class ToolboxTextDocumentNameParserTest {
@@ -58,4 +64,40 @@ public class ToolboxTextDocumentNameParserTest {
 		assertThat(name, is("Document at offset 15"));
 	}
 
+	/**
+	 * Tests the normalization of document names.
+	 */
+	@Test
+	public final void testNormalizeDocumentNames() {
+		assertThat(DocumentNameNormalizer.normalize("Doc 1.2: a,b-c (d)\ne"), is("Doc_1_2__a_b_c_d_e"));
+		String name = "Document_1";
+		assertThat(DocumentNameNormalizer.normalize(name) == name, is(true));
+	}
+
+	/**
+	 * Tests the detection of document name collisions per
+	 * corpus, including documents which are renamed.
+	 */
+	@Test
+	public final void testDocumentNameRegistry() {
+		SCorpusGraph corpusGraph = SaltFactory.createSCorpusGraph();
+		SCorpus corpus = corpusGraph.createCorpus(null, "corpus");
+		SCorpus otherCorpus = corpusGraph.createCorpus(null, "other");
+		DocumentNameRegistry names = new DocumentNameRegistry();
+		SDocument first = corpusGraph.createDocument(corpus, "Doc_1");
+		SDocument second = corpusGraph.createDocument(corpus, "Doc_1");
+		assertThat(names.register(first), is(true));
+		assertThat(names.register(first), is(true));
+		assertThat(names.register(second), is(false));
+		assertThat(names.register(corpusGraph.createDocument(otherCorpus, "Doc_1")), is(true));
+		// Renaming a document releases its previous name
+		first.setName("Doc_2");
+		assertThat(names.register(first), is(true));
+		assertThat(names.register(corpusGraph.createDocument(corpus, "Doc_3")), is(true));
+		second.setName("Doc_3");
+		assertThat(names.register(second), is(false));
+		second.setName("Doc_1");
+		assertThat(names.register(second), is(true));
+	}
+
 }
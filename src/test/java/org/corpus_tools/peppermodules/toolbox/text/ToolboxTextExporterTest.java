@@ -28,6 +28,8 @@ import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -187,6 +189,83 @@ public class ToolboxTextExporterTest extends PepperExporterTest {
 		}
 	}
 	
+	/**
+	 * Test that exporting over an existing file replaces
+	 * its content, leaves no temporary files behind, and
+	 * creates the file with the same permissions as any
+	 * other new file in the directory.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void testConversionOverExistingFile() throws IOException {
+		createTestProject();
+		setProperties("exporter/normalization/1.properties");
+		URI projectURI = URI
+				.createFileURI(getTempPath("ToolboxTextExporter-testProject/saltProject.salt").getAbsolutePath());
+		SaltProject saltProject = SaltFactory.createSaltProject();
+		saltProject.loadSaltProject(projectURI);
+		Path corpusDir = Paths.get(getTempPath("ToolboxTextExporter-overwrite").getAbsolutePath(), "corpus");
+		Files.createDirectories(corpusDir);
+		Path resultPath = corpusDir.resolve("document.txt");
+		Files.write(resultPath, Arrays.asList("stale"), Charset.forName("UTF-8"));
+		Path probePath = corpusDir.resolve("probe.txt");
+		Files.deleteIfExists(probePath);
+		Files.createFile(probePath);
+
+		getFixture().setSaltProject(saltProject);
+		getFixture().setCorpusDesc(new CorpusDesc().setCorpusPath(URI
+				.createFileURI(getTempPath("ToolboxTextExporter-overwrite").getAbsolutePath())));
+		start();
+
+		List<String> lines = Files.readAllLines(resultPath);
+		assertThat(lines.size(), is(11));
+		assertThat(lines.get(3), is("\\doc ione"));
+		assertTrue(Files.isReadable(resultPath));
+		if (Files.getFileStore(resultPath).supportsFileAttributeView(PosixFileAttributeView.class)) {
+			assertThat(Files.getPosixFilePermissions(resultPath), is(Files.getPosixFilePermissions(probePath)));
+		}
+		try (Stream<Path> files = Files.list(corpusDir)) {
+			assertThat(files.filter(f -> f.getFileName().toString().endsWith(".tmp")).count(), is(0L));
+		}
+	}
+	
+	/**
+	 * Test that each \ref is exported only under
+	 * the \id which covers it.
+	 */
+	@Test
+	public void testConversionMultipleIds() {
+		createMultipleIdsTestProject();
+		setProperties("exporter/normalization/1.properties");
+		URI projectURI = URI
+				.createFileURI(getTempPath("ToolboxTextExporter-multipleIds/saltProject.salt").getAbsolutePath());
+		SaltProject saltProject = SaltFactory.createSaltProject();
+		saltProject.loadSaltProject(projectURI);
+
+		getFixture().setSaltProject(saltProject);
+		getFixture().setCorpusDesc(new CorpusDesc().setCorpusPath(URI
+				.createFileURI(getTempPath("ToolboxTextExporter-multipleIds/result").getAbsolutePath())));
+		start();
+
+		String resultPath = getTempPath("ToolboxTextExporter-multipleIds/result").getAbsolutePath() + "/corpus/document.txt";
+		try {
+			List<String> lines = Files.readAllLines(Paths.get(resultPath));
+			assertThat(lines.size(), is(13));
+			assertThat(lines.get(3), is("\\doc ione"));
+			assertThat(lines.get(5), is("\\phrase rone"));
+			assertThat(lines.get(6), is("\\lex Birthday pony"));
+			assertThat(lines.get(7), is("\\morph m_birth m_day m_pony"));
+			assertThat(lines.get(8), is("\\doc itwo"));
+			assertThat(lines.get(10), is("\\phrase rtwo"));
+			assertThat(lines.get(11), is("\\lex cake"));
+			assertThat(lines.get(12), is("\\morph m_cake"));
+		}
+		catch (IOException e) {
+			fail("Could not read result file.");
+		}
+	}
+	
 	/**
 	 * Test conversion with a generic Salt example
 	 */
@@ -319,6 +398,79 @@ public class ToolboxTextExporterTest extends PepperExporterTest {
 		return project;
 	}
 
+	/**
+	 * Creates a test project with two "id"s, each
+	 * covering one "ref":
+	 * - "ione" with "rone" over "Birthday pony"
+	 * ("m_birth m_day m_pony")
+	 * - "itwo" with "rtwo" over "cake" ("m_cake")
+	 * 
+	 * All tokens are tied up with one timeline.
+	 */
+	private SaltProject createMultipleIdsTestProject() {
+		SaltProject project = SaltFactory.createSaltProject();
+		project.addCorpusGraph(SaltFactory.createSCorpusGraph());
+		SCorpusGraph cg = project.getCorpusGraphs().get(0);
+		SCorpus corp = cg.createCorpus(null, "corpus");
+		SDocument doc = cg.createDocument(corp, "document");
+		SDocumentGraph graph = doc.createDocumentGraph();
+		STimeline tl = graph.createTimeline();
+		STextualDS ds1 = graph.createTextualDS("Birthday pony cake");
+		SToken lt1 = graph.createToken(ds1, 0, 8);
+		createTimelineRelation(graph, tl, lt1, 0, 13);
+		SToken lt2 = graph.createToken(ds1, 9, 13);
+		createTimelineRelation(graph, tl, lt2, 13, 20);
+		SToken lt3 = graph.createToken(ds1, 14, 18);
+		createTimelineRelation(graph, tl, lt3, 20, 26);
+		STextualDS ds2 = graph.createTextualDS("m_birth m_day m_pony m_cake");
+		SToken mt1 = graph.createToken(ds2, 0, 7);
+		createTimelineRelation(graph, tl, mt1, 0, 7);
+		SToken mt2 = graph.createToken(ds2, 8, 13);
+		createTimelineRelation(graph, tl, mt2, 7, 13);
+		SToken mt3 = graph.createToken(ds2, 14, 20);
+		createTimelineRelation(graph, tl, mt3, 13, 20);
+		SToken mt4 = graph.createToken(ds2, 21, 27);
+		createTimelineRelation(graph, tl, mt4, 20, 26);
+		SSpan refSpan1 = graph.createSpan(lt1, lt2, mt1, mt2, mt3);
+		refSpan1.createAnnotation(null, "ref", "rone");
+		SSpan refSpan2 = graph.createSpan(lt3, mt4);
+		refSpan2.createAnnotation(null, "ref", "rtwo");
+		SSpan idSpan1 = graph.createSpan(lt1, lt2);
+		idSpan1.createAnnotation(null, "id", "ione");
+		SSpan idSpan2 = graph.createSpan(lt3);
+		idSpan2.createAnnotation(null, "id", "itwo");
+		
+		SLayer refSpanLayer = SaltFactory.createSLayer();
+		refSpanLayer.setName("ref");
+		refSpanLayer.addNode(refSpan1);
+		refSpanLayer.addNode(refSpan2);
+		graph.addLayer(refSpanLayer);
+		
+		SLayer idSpanLayer = SaltFactory.createSLayer();
+		idSpanLayer.setName("id");
+		idSpanLayer.addNode(idSpan1);
+		idSpanLayer.addNode(idSpan2);
+		graph.addLayer(idSpanLayer);
+		
+		SLayer txTokenLayer = SaltFactory.createSLayer();
+		txTokenLayer.setName("tx");
+		txTokenLayer.addNode(lt1);
+		txTokenLayer.addNode(lt2);
+		txTokenLayer.addNode(lt3);
+		graph.addLayer(txTokenLayer);
+		
+		SLayer mbTokenLayer = SaltFactory.createSLayer();
+		mbTokenLayer.setName("mb");
+		mbTokenLayer.addNode(mt1);
+		mbTokenLayer.addNode(mt2);
+		mbTokenLayer.addNode(mt3);
+		mbTokenLayer.addNode(mt4);
+		graph.addLayer(mbTokenLayer);
+		
+		project.saveSaltProject(URI.createFileURI(getTempPath("ToolboxTextExporter-multipleIds").getAbsolutePath()));
+		return project;
+	}
+
 	private void createTimelineRelation(SDocumentGraph graph, STimeline tl, SToken t, int i, int j) {
 		STimelineRelation tr = SaltFactory.createSTimelineRelation();
 		tr.setSource(t);
@@ -20,10 +20,13 @@
 package org.corpus_tools.peppermodules.toolbox.text;
 
 import static org.hamcrest.Matchers.anyOf;   
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
@@ -31,13 +34,20 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import org.corpus_tools.pepper.common.CorpusDesc;
 import org.corpus_tools.pepper.common.FormatDesc;
 import org.corpus_tools.pepper.modules.exceptions.PepperModuleException;
 import org.corpus_tools.pepper.testFramework.PepperImporterTest;
+import org.corpus_tools.peppermodules.toolbox.text.properties.MarkerRole;
+import org.corpus_tools.peppermodules.toolbox.text.properties.ToolboxTextImporterConfiguration;
 import org.corpus_tools.peppermodules.toolbox.text.properties.ToolboxTextImporterProperties;
 import org.corpus_tools.salt.SaltFactory;
 import org.corpus_tools.salt.common.SCorpusGraph;
@@ -51,6 +61,7 @@ import org.corpus_tools.salt.core.SAnnotation;
 import org.corpus_tools.salt.core.SLayer;
 import org.corpus_tools.salt.core.SMetaAnnotation;
 import org.corpus_tools.salt.core.SNode;
+import org.corpus_tools.salt.core.SRelation;
 import org.corpus_tools.salt.graph.Identifier;
 import org.eclipse.emf.common.util.URI;
 import org.junit.After;
@@ -1837,6 +1848,206 @@ public class ToolboxTextImporterTest extends PepperImporterTest {
 		}
 	}
 	
+	/**
+	 * Tests the lean graph mode against a document
+	 * without morphology: No timeline and no empty
+	 * layers should be created.
+	 */
+	@Test
+	public void testWithoutMbLinesLeanGraph() {
+		setTestFile("importer/test-no-mb-lines.txt");
+		setProperties("importer/test-no-mb-lines.properties");
+		getFixture().getProperties().setPropertyValue(ToolboxTextImporterProperties.PROP_LEAN_GRAPH, true);
+		start();
+		SDocumentGraph graph = getNonEmptyCorpusGraph().getDocuments().get(0).getDocumentGraph();
+		assertNull(graph.getTimeline());
+		assertEquals(0, graph.getTimelineRelations().size());
+		assertEquals(1, graph.getTextualDSs().size());
+		assertEquals("Word1 Word2 Word3 Word4 Word5 Word6", graph.getTextualDSs().get(0).getText());
+		assertEquals(6, graph.getTokens().size());
+		assertEquals(3, graph.getSpans().size());
+		assertEquals(2, graph.getLayers().size());
+		assertTrue(graph.getLayerByName("mb").isEmpty());
+	}
+
+	/**
+	 * Tests the lean graph mode against a document
+	 * with morphology: The timeline, both data sources
+	 * in the same order as in a full graph, and all
+	 * layers should be created.
+	 */
+	@Test
+	public void testMixedWithWithoutMbLinesLeanGraph() {
+		setTestFile("importer/test-mixed-with-without-mb.txt");
+		setProperties("importer/test-mixed-with-without-mb.properties");
+		getFixture().getProperties().setPropertyValue(ToolboxTextImporterProperties.PROP_LEAN_GRAPH, true);
+		start();
+		SDocumentGraph graph = getGraph("Document_no__1");
+		assertNotNull(graph.getTimeline());
+		assertEquals(2, graph.getTextualDSs().size());
+		assertEquals("Word1 Word2 Word3 Word4 Word5 Word6", graph.getTextualDSs().get(0).getText());
+		assertEquals("m1m2m5m6", graph.getTextualDSs().get(1).getText());
+		assertEquals(10, graph.getTokens().size());
+		assertEquals(3, graph.getLayers().size());
+		for (SLayer layer : graph.getLayers()) {
+			assertFalse(layer.getNodes().isEmpty());
+		}
+	}
+
+	/**
+	 * Tests string interning: The import should not change
+	 * with interning, and equal annotation values should be
+	 * replaced by pooled instances.
+	 */
+	@Test
+	public void testInternStrings() {
+		setTestFile("importer/annos-unequal-tok.txt");
+		getFixture().getProperties().setPropertyValue(ToolboxTextImporterProperties.PROP_LEX_ANNOTATION_MARKERS, "ta,tb");
+		getFixture().getProperties().setPropertyValue(ToolboxTextImporterProperties.PROP_MORPH_ANNOTATION_MARKERS, "ge");
+		getFixture().getProperties().setPropertyValue(ToolboxTextImporterProperties.PROP_INTERN_STRINGS, true);
+		rootLogger.setLevel(Level.INFO);
+		start();
+		int ones = 0;
+		for (SToken token : getNonEmptyCorpusGraph().getDocuments().get(0).getDocumentGraph().getTokens()) {
+			SAnnotation annotation = token.getAnnotation("toolbox::ta");
+			if (annotation != null && "one".equals(annotation.getValue())) {
+				ones++;
+			}
+		}
+		assertEquals(3, ones);
+		// The values in the imported graph need not be the instances set by the mapper, so check the interner's count
+		verify(mockAppender).doAppend(argThat(new ArgumentMatcher<LoggingEvent>() {
+			@Override
+			public boolean matches(Object argument) {
+				LoggingEvent event = (LoggingEvent) argument;
+				return event.getFormattedMessage().contains("Interned") && ((Number) event.getArgumentArray()[1]).longValue() > 0;
+			}
+		}));
+	}
+
+	/**
+	 * Tests that references without a name are named
+	 * deterministically, by default by their ordinal in
+	 * the document.
+	 */
+	@Test
+	public void testUnnamedRefNaming() {
+		setTestFile("importer/unnamed-refs.txt");
+		start();
+		List<String> names = new ArrayList<>();
+		for (SSpan span : getGraph("Unnamed").getSpans()) {
+			names.add(span.getName());
+		}
+		assertThat(names, containsInAnyOrder("Unnamed \\ref (Unnamed #1)", "Named", "Unnamed \\ref (Unnamed #2)"));
+	}
+
+	/**
+	 * Tests that references without a name are named by
+	 * their byte offset if so configured.
+	 */
+	@Test
+	public void testUnnamedRefNamingByOffset() {
+		setTestFile("importer/unnamed-refs.txt");
+		getFixture().getProperties().setPropertyValue(ToolboxTextImporterProperties.PROP_UNNAMED_REF_NAMING, "offset");
+		start();
+		List<String> names = new ArrayList<>();
+		for (SSpan span : getGraph("Unnamed").getSpans()) {
+			names.add(span.getName());
+		}
+		assertThat(names, containsInAnyOrder("Unnamed \\ref (Unnamed @35)", "Named", "Unnamed \\ref (Unnamed @87)"));
+	}
+
+	/**
+	 * Tests that importing the same file twice produces identical
+	 * graphs, including the ids and order of subreference spans.
+	 */
+	@Test
+	public void testRepeatedImportProducesIdenticalGraphs() {
+		String first = importAndDescribe("bugs/4.txt", "bugs/4.properties");
+		for (int i = 0; i < 3; i++) {
+			assertEquals(first, importAndDescribe("bugs/4.txt", "bugs/4.properties"));
+		}
+	}
+
+	/**
+	 * Tests the aggregation of frequent warnings: Only the
+	 * first warning of a category should be logged, and all
+	 * warnings should be listed in the summary.
+	 */
+	@Test
+	public void testWarningAggregation() {
+		setTestFile("bugs/5.txt");
+		setProperties("bugs/5.properties");
+		getFixture().getProperties().setPropertyValue(ToolboxTextImporterProperties.PROP_WARNING_EXAMPLES, 1);
+		start();
+		verify(mockAppender, times(1)).doAppend(argThat(new ArgumentMatcher<LoggingEvent>() {
+			@Override
+			public boolean matches(Object argument) {
+				return ((LoggingEvent) argument).getFormattedMessage().startsWith("Subref ");
+			}
+		}));
+		checkLog("Further warnings of this category will only be counted", Level.WARN);
+		checkLog("Unresolved subrefs: 2 (1 not logged)\n\t2\t5", Level.WARN);
+	}
+
+	/**
+	 * Tests the interlinearization error report against
+	 * a document with excess and missing annotations.
+	 *
+	 * @throws IOException
+	 */
+	@Test
+	public void testInterl11nReport() throws IOException {
+		File report = File.createTempFile("interl11n", ".tsv");
+		report.deleteOnExit();
+		setTestFile("importer/annos-unequal-tok.txt");
+		getFixture().getProperties().setPropertyValue(ToolboxTextImporterProperties.PROP_LEX_ANNOTATION_MARKERS, "ta,tb");
+		getFixture().getProperties().setPropertyValue(ToolboxTextImporterProperties.PROP_MORPH_ANNOTATION_MARKERS, "ge");
+		getFixture().getProperties().setPropertyValue(ToolboxTextImporterProperties.PROP_INTERL11N_REPORT, report.getAbsolutePath());
+		start();
+		List<String> lines = Files.readAllLines(report.toPath(), StandardCharsets.UTF_8);
+		assertEquals("document\tref\ttier\ttokenTier\texpected\tactual\taction", lines.get(0));
+		assertThat(lines, hasItem("ID1\tREF2\tta\ttx\t2\t4\tTRUNCATED"));
+		assertThat(lines, hasItem("ID1\tREF2\ttb\ttx\t2\t1\tPADDED"));
+		assertThat(lines, hasItem("ID1\tREF2\tge\tmb\t2\t1\tPADDED"));
+	}
+
+	/**
+	 * Tests that documents whose names collide after
+	 * normalization are imported, and that the collision
+	 * is reported exactly once.
+	 */
+	@Test
+	public void testDuplicateDocumentNames() {
+		setTestFile("importer/duplicate-ids.txt");
+		start();
+		assertEquals(3, getNonEmptyCorpusGraph().getDocuments().size());
+		verify(mockAppender, times(1)).doAppend(argThat(new ArgumentMatcher<LoggingEvent>() {
+			@Override
+			public boolean matches(Object argument) {
+				return ((LoggingEvent) argument).getFormattedMessage().startsWith("The document name \"Doc_1\" is used more than once");
+			}
+		}));
+		verify(mockAppender, never()).doAppend(argThat(new ArgumentMatcher<LoggingEvent>() {
+			@Override
+			public boolean matches(Object argument) {
+				return ((LoggingEvent) argument).getFormattedMessage().startsWith("The document name \"Doc_2\"");
+			}
+		}));
+	}
+
+	/**
+	 * Tests that ending the importer without having
+	 * checked whether it is ready to start, i.e., without
+	 * diagnostics and warnings having been set up, works.
+	 */
+	@Test
+	public void testEndWithoutStart() {
+		ToolboxTextImporter importer = new ToolboxTextImporter();
+		importer.setSaltProject(SaltFactory.createSaltProject());
+		importer.end();
+	}
+
 	/**
 	 * Test method for
 	 * {@link org.corpus_tools.peppermodules.toolbox.text.ToolboxTextImporter#importCorpusStructure(org.corpus_tools.salt.common.SCorpusGraph)}.
@@ -2205,6 +2416,41 @@ public class ToolboxTextImporterTest extends PepperImporterTest {
 		getFixture().setProperties(properties);
 	}
 	
+	/**
+	 * Imports a file with a fresh fixture, and describes all nodes
+	 * and relations of its document graphs in the order of the graphs.
+	 *
+	 * @param fileName The test file
+	 * @param propertiesFileName The properties file
+	 * @return A description of the imported document graphs
+	 */
+	private String importAndDescribe(String fileName, String propertiesFileName) {
+		setFixture(new ToolboxTextImporter());
+		getFixture().getCorpusDesc().getFormatDesc().setFormatName("toolbox-text").setFormatVersion("3.0");
+		getFixture().getSaltProject().createCorpusGraph();
+		setTestFile(fileName);
+		setProperties(propertiesFileName);
+		start();
+		StringBuilder description = new StringBuilder();
+		for (SDocument doc : getNonEmptyCorpusGraph().getDocuments()) {
+			SDocumentGraph graph = doc.getDocumentGraph();
+			description.append(doc.getName()).append('\n');
+			for (SNode node : graph.getNodes()) {
+				// Salt doesn't retain the order in which annotations have been added
+				List<String> annotations = new ArrayList<>();
+				for (SAnnotation a : node.getAnnotations()) {
+					annotations.add(a.getQName() + "=" + a.getValue_STEXT());
+				}
+				Collections.sort(annotations);
+				description.append(node.getId()).append(' ').append(node.getName()).append(' ').append(annotations).append('\n');
+			}
+			for (SRelation<?, ?> rel : graph.getRelations()) {
+				description.append(rel.getId()).append(' ').append(rel.getSource().getId()).append(" -> ").append(rel.getTarget().getId()).append('\n');
+			}
+		}
+		return description.toString();
+	}
+
 	private SDocumentGraph getGraph(String name) {
 		return getDocument(name).getDocumentGraph();
 	}
@@ -2369,6 +2615,36 @@ public class ToolboxTextImporterTest extends PepperImporterTest {
 			}
 		}
 	}
+
+	/**
+	 * Tests the compiled configuration for the marker
+	 * mapping properties.
+	 */
+	@Test
+	public void testCompiledConfiguration() {
+		ToolboxTextImporterProperties properties = new ToolboxTextImporterProperties();
+		properties.setPropertyValues(new File(getFile("importer/marker-mapping.properties")));
+		ToolboxTextImporterConfiguration config = properties.compileConfiguration();
+		assertThat(properties.getConfiguration(), is(config));
+		assertThat(config.getLexAnnotationMarkers(), is(Arrays.asList("lexanno")));
+		assertThat(config.getMorphAnnotationMarkers(), is(Arrays.asList("morphanno")));
+		assertThat(config.normalize("phrase"), is("phrase"));
+		assertThat(config.getMarker("lexanno"), is("la"));
+		assertThat(config.getMarker("unmapped"), is("unmapped"));
+		assertThat(config.getLayerName("lex"), is("tx"));
+		assertThat(config.getLayerName("morph"), is("mb"));
+		assertThat(config.getLayerName("phrase"), is("ref"));
+		assertTrue(config.isPrimaryMarker("subref"));
+		assertTrue(config.isRepeatableMarker("subref"));
+		assertThat(config.isRepeatableMarker("lexanno"), is(false));
+		assertThat(config.getRole("phrase"), is(MarkerRole.REF));
+		assertThat(config.getRole("lex"), is(MarkerRole.LEX));
+		assertThat(config.getRole("morph"), is(MarkerRole.MORPH));
+		assertThat(config.getRole("subref"), is(MarkerRole.SUBREF));
+		assertThat(config.getRole("lexanno"), is(MarkerRole.LEX_ANNO));
+		assertThat(config.getRole("morphanno"), is(MarkerRole.MORPH_ANNO));
+		assertThat(config.getRole("unmapped"), is(MarkerRole.REF_ANNO));
+	}
 	                                                                  
 
 
@@ -0,0 +1,124 @@
+/*******************************************************************************
+ * Copyright (c) 2016, 2018ff. Stephan Druskat
+ * Exploitation rights for this version belong exclusively to Humboldt-Universität zu Berlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Stephan Druskat (mail@sdruskat.net) - initial API and implementation
+ *******************************************************************************/
+package org.corpus_tools.peppermodules.toolbox.text.mapping;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.commons.io.output.ByteArrayOutputStream;
+import org.corpus_tools.peppermodules.toolbox.text.properties.ToolboxTextImporterProperties;
+import org.corpus_tools.peppermodules.toolbox.text.properties.UnnamedRefNaming;
+import org.corpus_tools.salt.SaltFactory;
+import org.corpus_tools.salt.common.SDocument;
+import org.corpus_tools.salt.common.SDocumentGraph;
+import org.junit.Test;
+
+import com.google.common.collect.ListMultimap;
+
+/**
+ * Unit tests for {@link ScratchContext}.
+ *
+ * @author Stephan Druskat <[mail@sdruskat.net](mailto:mail@sdruskat.net)>
+ *
+ */
+public class ScratchContextTest {
+
+	/**
+	 * Tests that mapping consecutive references on the same
+	 * thread reuses the same scratch objects rather than
+	 * allocating new ones for each reference.
+	 */
+	@Test
+	public void testScratchObjectsAreReusedAcrossRefs() {
+		ToolboxTextImporterProperties properties = new ToolboxTextImporterProperties();
+		SDocument document = SaltFactory.createSDocument();
+		document.setName("doc");
+		SDocumentGraph graph = SaltFactory.createSDocumentGraph();
+		document.setDocumentGraph(graph);
+		DocumentContext context = new DocumentContext(graph, UnnamedRefNaming.ORDINAL, null, null, null);
+		PrimaryTextBuilder lexText = new PrimaryTextBuilder(graph, "tx", " ");
+		PrimaryTextBuilder morphText = new PrimaryTextBuilder(graph, "mb", "", lexText);
+		TimelineBuilder timeline = new TimelineBuilder(graph, graph.createTimeline());
+
+		RefMapper first = new RefMapper(properties, context, "\\ref Ref 1\n\\tx one two\n\\mb one two", true, lexText, morphText, timeline, 0L);
+		assertTrue(first.map());
+		ScratchContext scratch = ScratchContext.get();
+		ListMultimap<String, String> markerContentMap = first.getMarkerContentMap();
+		StringBuilder chars = scratch.getCharBuffer();
+		int[] starts = scratch.getStarts(1);
+		int[] ends = scratch.getEnds(1);
+		int[] offsets = scratch.getOffsets(1);
+
+		RefMapper second = new RefMapper(properties, context, "\\ref Ref 2\n\\tx three four five\n\\mb three four five", true, lexText, morphText, timeline, 1L);
+		assertTrue(second.map());
+		assertThat(ScratchContext.get(), is(sameInstance(scratch)));
+		assertThat(second.getMarkerContentMap(), is(sameInstance(markerContentMap)));
+		assertThat(scratch.getCharBuffer(), is(sameInstance(chars)));
+		assertThat(scratch.getStarts(1), is(sameInstance(starts)));
+		assertThat(scratch.getEnds(1), is(sameInstance(ends)));
+		assertThat(scratch.getOffsets(1), is(sameInstance(offsets)));
+		assertThat(graph.getTokens().size(), is(10));
+	}
+
+	/**
+	 * Tests that each thread has its own scratch context.
+	 * 
+	 * @throws InterruptedException
+	 */
+	@Test
+	public void testScratchContextIsPerThread() throws InterruptedException {
+		final AtomicReference<ScratchContext> other = new AtomicReference<>();
+		Thread thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				other.set(ScratchContext.get());
+			}
+		});
+		thread.start();
+		thread.join();
+		assertThat(other.get(), is(not(sameInstance(ScratchContext.get()))));
+	}
+
+	/**
+	 * Tests that trimming only replaces the buffers
+	 * which have grown beyond the retained capacity.
+	 */
+	@Test
+	public void testTrimDropsOnlyOversizedBuffers() {
+		ScratchContext scratch = ScratchContext.create();
+		int[] starts = scratch.getStarts(ScratchContext.RETAINED_CAPACITY + 1);
+		int[] ends = scratch.getEnds(1);
+		ByteArrayOutputStream bytes = scratch.getByteBuffer();
+		bytes.write(new byte[ScratchContext.RETAINED_CAPACITY + 1], 0, ScratchContext.RETAINED_CAPACITY + 1);
+		// Resetting the buffer retains its grown capacity
+		scratch.getByteBuffer();
+		scratch.trimToRetainedCapacity();
+		assertThat(scratch.getStarts(1), is(not(sameInstance(starts))));
+		assertThat(scratch.getStarts(1).length < ScratchContext.RETAINED_CAPACITY, is(true));
+		assertThat(scratch.getEnds(1), is(sameInstance(ends)));
+		assertThat(scratch.getByteBuffer(), is(not(sameInstance(bytes))));
+	}
+
+}
@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright (c) 2016, 2018ff. Stephan Druskat
+ * Exploitation rights for this version belong exclusively to Humboldt-Universität zu Berlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Stephan Druskat (mail@sdruskat.net) - initial API and implementation
+ *******************************************************************************/
+package org.corpus_tools.peppermodules.toolbox.text.utils;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+
+import org.corpus_tools.peppermodules.toolbox.text.utils.InterningPool.DocumentInterner;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link InterningPool}.
+ *
+ * @author Stephan Druskat <[mail@sdruskat.net](mailto:mail@sdruskat.net)>
+ *
+ */
+public class InterningPoolTest {
+
+	/**
+	 * Tests that equal strings are pooled once until the
+	 * pool is full, and that the savings are counted per
+	 * document.
+	 */
+	@Test
+	public void testIntern() {
+		InterningPool pool = new InterningPool(2);
+		DocumentInterner interner = pool.forDocument("doc");
+		String one = interner.intern(new String("one"));
+		assertThat(interner.intern(new String("one")), is(sameInstance(one)));
+		assertThat(pool.intern(new String("one")), is(sameInstance(one)));
+		interner.intern("two");
+		String three = new String("three");
+		assertThat(interner.intern(three), is(sameInstance(three)));
+		assertEquals(2, pool.size());
+		assertEquals(1, interner.getCount());
+		assertThat(interner.getBytesSaved(), greaterThan(0L));
+	}
+
+	/**
+	 * Tests that strings longer than {@link InterningPool#MAX_LENGTH}
+	 * are never pooled.
+	 */
+	@Test
+	public void testInternLongString() {
+		InterningPool pool = new InterningPool(2);
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i <= InterningPool.MAX_LENGTH; i++) {
+			builder.append('a');
+		}
+		String value = builder.toString();
+		assertThat(pool.intern(value), is(sameInstance(value)));
+		assertThat(pool.intern(new String(value)), is(not(sameInstance(value))));
+		assertEquals(0, pool.size());
+	}
+
+	/**
+	 * Tests that the estimated size of a string grows with its
+	 * length in steps of the object alignment, and that strings
+	 * with characters outside of Latin-1 are never estimated
+	 * smaller than Latin-1 strings of the same length.
+	 */
+	@Test
+	public void testEstimateSize() {
+		assertEquals(0, InterningPool.estimateSize("") % 8);
+		assertEquals(0, InterningPool.estimateSize("one") % 8);
+		assertThat(InterningPool.estimateSize("a string of some length"), greaterThan(InterningPool.estimateSize("one")));
+		assertThat(InterningPool.estimateSize("\u0101\u0101\u0101\u0101\u0101\u0101\u0101\u0101\u0101"), greaterThanOrEqualTo(InterningPool.estimateSize("aaaaaaaaa")));
+	}
+
+}